@@ -5,12 +5,59 @@
 
 package com.philips.research.bombase;
 
+import com.philips.research.bombase.core.meta.registry.Field;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 @ConfigurationProperties(prefix = "bom-base")
 public class ConfigProperties {
     private boolean scanLicenses = true;
     private boolean harvestClearlyDefined = true;
+    private @NullOr Path storeDirectory;
+    private @NullOr Path snapshotFile;
+    private boolean restoreSnapshot = false;
+    private int cpuThreads = 4;
+    private int ioThreads = 256;
+    private boolean virtualThreads = true;
+    private Set<String> cpuListeners = new HashSet<>(Set.of("SourceLicensesHarvester", "LicenseCleaner"));
+    private Map<String, BulkheadProperties> bulkheads = new HashMap<>();
+    private int harvestQueueCapacity = 10_000;
+    private @NullOr Path taskJournalDirectory;
+    private int journalReplayLimit = 64;
+    private int retryAttempts = 5;
+    private Duration retryDelay = Duration.ofSeconds(1);
+    private Duration retryMaxDelay = Duration.ofMinutes(5);
+    private int breakerThreshold = 5;
+    private Duration breakerDelay = Duration.ofMinutes(1);
+    private int refreshRate = 10;
+    private Duration refreshTtl = Duration.ofDays(30);
+    private Map<Field, Duration> refreshFieldTtls = new HashMap<>();
+    private Map<String, Duration> refreshSourceTtls = new HashMap<>();
+    private int updateBufferSize = 1000;
+    private Duration httpConnectTimeout = Duration.ofSeconds(10);
+    private Duration httpReadTimeout = Duration.ofSeconds(30);
+    private int httpMaxIdleConnections = 32;
+    private Duration httpKeepAlive = Duration.ofMinutes(5);
+    private int httpMaxRequests = 256;
+    private int httpMaxRequestsPerHost = 32;
+    private @NullOr Path httpCacheDirectory;
+    private DataSize httpCacheSize = DataSize.ofMegabytes(512);
+    private Duration httpCacheImmutableMaxAge = Duration.ofDays(365);
+    private Duration negativeCacheTtl = Duration.ofHours(6);
+    private int negativeCacheSize = 100_000;
+    private int clearlyDefinedBatchSize = 32;
+    private Duration clearlyDefinedBatchWindow = Duration.ofMillis(200);
+    private Duration debianSeriesTtl = Duration.ofDays(1);
+    private int debianMappingCacheSize = 10_000;
 
     public boolean isScanLicenses() {
         return scanLicenses;
@@ -29,4 +76,387 @@ public class ConfigProperties {
         this.harvestClearlyDefined = harvestClearlyDefined;
         return this;
     }
+
+    public @NullOr Path getStoreDirectory() {
+        return storeDirectory;
+    }
+
+    public ConfigProperties setStoreDirectory(@NullOr Path storeDirectory) {
+        this.storeDirectory = storeDirectory;
+        return this;
+    }
+
+    public @NullOr Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public ConfigProperties setSnapshotFile(@NullOr Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        return this;
+    }
+
+    public boolean isRestoreSnapshot() {
+        return restoreSnapshot;
+    }
+
+    public ConfigProperties setRestoreSnapshot(boolean restoreSnapshot) {
+        this.restoreSnapshot = restoreSnapshot;
+        return this;
+    }
+
+    public int getCpuThreads() {
+        return cpuThreads;
+    }
+
+    public ConfigProperties setCpuThreads(int cpuThreads) {
+        this.cpuThreads = cpuThreads;
+        return this;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public ConfigProperties setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public ConfigProperties setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    public Set<String> getCpuListeners() {
+        return cpuListeners;
+    }
+
+    public ConfigProperties setCpuListeners(Set<String> cpuListeners) {
+        this.cpuListeners = cpuListeners;
+        return this;
+    }
+
+    public int getHarvestQueueCapacity() {
+        return harvestQueueCapacity;
+    }
+
+    public ConfigProperties setHarvestQueueCapacity(int harvestQueueCapacity) {
+        this.harvestQueueCapacity = harvestQueueCapacity;
+        return this;
+    }
+
+    public @NullOr Path getTaskJournalDirectory() {
+        return taskJournalDirectory;
+    }
+
+    public ConfigProperties setTaskJournalDirectory(@NullOr Path taskJournalDirectory) {
+        this.taskJournalDirectory = taskJournalDirectory;
+        return this;
+    }
+
+    public int getJournalReplayLimit() {
+        return journalReplayLimit;
+    }
+
+    public ConfigProperties setJournalReplayLimit(int journalReplayLimit) {
+        this.journalReplayLimit = journalReplayLimit;
+        return this;
+    }
+
+    public int getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    public ConfigProperties setRetryAttempts(int retryAttempts) {
+        this.retryAttempts = retryAttempts;
+        return this;
+    }
+
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+
+    public ConfigProperties setRetryDelay(Duration retryDelay) {
+        this.retryDelay = retryDelay;
+        return this;
+    }
+
+    public Duration getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public ConfigProperties setRetryMaxDelay(Duration retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+        return this;
+    }
+
+    public int getBreakerThreshold() {
+        return breakerThreshold;
+    }
+
+    public ConfigProperties setBreakerThreshold(int breakerThreshold) {
+        this.breakerThreshold = breakerThreshold;
+        return this;
+    }
+
+    public Duration getBreakerDelay() {
+        return breakerDelay;
+    }
+
+    public ConfigProperties setBreakerDelay(Duration breakerDelay) {
+        this.breakerDelay = breakerDelay;
+        return this;
+    }
+
+    public int getRefreshRate() {
+        return refreshRate;
+    }
+
+    public ConfigProperties setRefreshRate(int refreshRate) {
+        this.refreshRate = refreshRate;
+        return this;
+    }
+
+    public Duration getRefreshTtl() {
+        return refreshTtl;
+    }
+
+    public ConfigProperties setRefreshTtl(Duration refreshTtl) {
+        this.refreshTtl = refreshTtl;
+        return this;
+    }
+
+    public Map<Field, Duration> getRefreshFieldTtls() {
+        return refreshFieldTtls;
+    }
+
+    public ConfigProperties setRefreshFieldTtls(Map<Field, Duration> refreshFieldTtls) {
+        this.refreshFieldTtls = refreshFieldTtls;
+        return this;
+    }
+
+    public Map<String, Duration> getRefreshSourceTtls() {
+        return refreshSourceTtls;
+    }
+
+    public ConfigProperties setRefreshSourceTtls(Map<String, Duration> refreshSourceTtls) {
+        this.refreshSourceTtls = refreshSourceTtls;
+        return this;
+    }
+
+    public int getUpdateBufferSize() {
+        return updateBufferSize;
+    }
+
+    public ConfigProperties setUpdateBufferSize(int updateBufferSize) {
+        this.updateBufferSize = updateBufferSize;
+        return this;
+    }
+
+    public Duration getHttpConnectTimeout() {
+        return httpConnectTimeout;
+    }
+
+    public ConfigProperties setHttpConnectTimeout(Duration httpConnectTimeout) {
+        this.httpConnectTimeout = httpConnectTimeout;
+        return this;
+    }
+
+    public Duration getHttpReadTimeout() {
+        return httpReadTimeout;
+    }
+
+    public ConfigProperties setHttpReadTimeout(Duration httpReadTimeout) {
+        this.httpReadTimeout = httpReadTimeout;
+        return this;
+    }
+
+    public int getHttpMaxIdleConnections() {
+        return httpMaxIdleConnections;
+    }
+
+    public ConfigProperties setHttpMaxIdleConnections(int httpMaxIdleConnections) {
+        this.httpMaxIdleConnections = httpMaxIdleConnections;
+        return this;
+    }
+
+    public Duration getHttpKeepAlive() {
+        return httpKeepAlive;
+    }
+
+    public ConfigProperties setHttpKeepAlive(Duration httpKeepAlive) {
+        this.httpKeepAlive = httpKeepAlive;
+        return this;
+    }
+
+    public int getHttpMaxRequests() {
+        return httpMaxRequests;
+    }
+
+    public ConfigProperties setHttpMaxRequests(int httpMaxRequests) {
+        this.httpMaxRequests = httpMaxRequests;
+        return this;
+    }
+
+    public int getHttpMaxRequestsPerHost() {
+        return httpMaxRequestsPerHost;
+    }
+
+    public ConfigProperties setHttpMaxRequestsPerHost(int httpMaxRequestsPerHost) {
+        this.httpMaxRequestsPerHost = httpMaxRequestsPerHost;
+        return this;
+    }
+
+    public @NullOr Path getHttpCacheDirectory() {
+        return httpCacheDirectory;
+    }
+
+    public ConfigProperties setHttpCacheDirectory(@NullOr Path httpCacheDirectory) {
+        this.httpCacheDirectory = httpCacheDirectory;
+        return this;
+    }
+
+    public DataSize getHttpCacheSize() {
+        return httpCacheSize;
+    }
+
+    public ConfigProperties setHttpCacheSize(DataSize httpCacheSize) {
+        this.httpCacheSize = httpCacheSize;
+        return this;
+    }
+
+    public Duration getHttpCacheImmutableMaxAge() {
+        return httpCacheImmutableMaxAge;
+    }
+
+    public ConfigProperties setHttpCacheImmutableMaxAge(Duration httpCacheImmutableMaxAge) {
+        this.httpCacheImmutableMaxAge = httpCacheImmutableMaxAge;
+        return this;
+    }
+
+    public Duration getNegativeCacheTtl() {
+        return negativeCacheTtl;
+    }
+
+    public ConfigProperties setNegativeCacheTtl(Duration negativeCacheTtl) {
+        this.negativeCacheTtl = negativeCacheTtl;
+        return this;
+    }
+
+    public int getNegativeCacheSize() {
+        return negativeCacheSize;
+    }
+
+    public ConfigProperties setNegativeCacheSize(int negativeCacheSize) {
+        this.negativeCacheSize = negativeCacheSize;
+        return this;
+    }
+
+    public int getClearlyDefinedBatchSize() {
+        return clearlyDefinedBatchSize;
+    }
+
+    public ConfigProperties setClearlyDefinedBatchSize(int clearlyDefinedBatchSize) {
+        this.clearlyDefinedBatchSize = clearlyDefinedBatchSize;
+        return this;
+    }
+
+    public Duration getClearlyDefinedBatchWindow() {
+        return clearlyDefinedBatchWindow;
+    }
+
+    public ConfigProperties setClearlyDefinedBatchWindow(Duration clearlyDefinedBatchWindow) {
+        this.clearlyDefinedBatchWindow = clearlyDefinedBatchWindow;
+        return this;
+    }
+
+    public Duration getDebianSeriesTtl() {
+        return debianSeriesTtl;
+    }
+
+    public ConfigProperties setDebianSeriesTtl(Duration debianSeriesTtl) {
+        this.debianSeriesTtl = debianSeriesTtl;
+        return this;
+    }
+
+    public int getDebianMappingCacheSize() {
+        return debianMappingCacheSize;
+    }
+
+    public ConfigProperties setDebianMappingCacheSize(int debianMappingCacheSize) {
+        this.debianMappingCacheSize = debianMappingCacheSize;
+        return this;
+    }
+
+    /**
+     * @param listener name of the listener
+     * @param produced fields modified by the listener
+     * @return time until the harvest of the listener becomes stale
+     */
+    public Duration getRefreshTtl(String listener, Set<Field> produced) {
+        final var ttl = refreshSourceTtls.get(listener);
+        if (ttl != null) {
+            return ttl;
+        }
+        return produced.stream()
+                .map(field -> refreshFieldTtls.getOrDefault(field, refreshTtl))
+                .min(Comparator.naturalOrder())
+                .orElse(refreshTtl);
+    }
+
+    public Map<String, BulkheadProperties> getBulkheads() {
+        return bulkheads;
+    }
+
+    public ConfigProperties setBulkheads(Map<String, BulkheadProperties> bulkheads) {
+        this.bulkheads = bulkheads;
+        return this;
+    }
+
+    /**
+     * @return concurrency budget for the tasks of the indicated listener
+     */
+    public BulkheadProperties getBulkhead(String listener) {
+        return bulkheads.getOrDefault(listener, new BulkheadProperties());
+    }
+
+    /**
+     * Concurrency budget for the tasks of a listener.
+     */
+    public static class BulkheadProperties {
+        private int limit = 32;
+        private int queue = 10_000;
+        private Duration timeout = Duration.ofMinutes(30);
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public BulkheadProperties setLimit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public int getQueue() {
+            return queue;
+        }
+
+        public BulkheadProperties setQueue(int queue) {
+            this.queue = queue;
+            return this;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public BulkheadProperties setTimeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+    }
 }
@@ -5,6 +5,7 @@
 
 package com.philips.research.bombase.controller;
 
+import com.philips.research.bombase.core.QueueFullException;
 import com.philips.research.bombase.core.UnknownPackageException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,15 @@ public class ControllerExceptionHandler {
         return Map.of("reason", e.getMessage());
     }
 
+    /**
+     * Handles requests that cannot be queued for processing.
+     */
+    @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(QueueFullException.class)
+    public Map<String, String> handleQueueFullException(QueueFullException e) {
+        return Map.of("reason", e.getMessage());
+    }
+
     /**
      * Handles request parameter validation failures.
      *
@@ -8,6 +8,7 @@ package com.philips.research.bombase.controller;
 import com.github.packageurl.MalformedPackageURLException;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.MetaService;
+import com.philips.research.bombase.core.MetaService.AttributeDto;
 import com.philips.research.bombase.core.UnknownPackageException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +18,8 @@ import pl.tlinkowski.annotation.basic.NullOr;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @CrossOrigin(origins = "*")
@@ -30,10 +33,24 @@ public class LegacyRoute {
 
     @PostMapping("/packages")
     LicenseJson getLicense(@RequestBody RequestJson body) {
+        final var purl = packageUrl(body);
+        final @NullOr String license = getDetectedLicenseOrCreatePackage(purl);
+        return new LicenseJson(purl, license);
+    }
+
+    /**
+     * Provides the license after the harvest of the package settled, creating it if it is unknown.
+     */
+    @PostMapping(value = "/packages", params = "wait")
+    CompletableFuture<LicenseJson> awaitLicense(@RequestBody RequestJson body, @RequestParam String wait) {
+        final var purl = packageUrl(body);
+        return service.awaitAttributes(purl, WaitParameter.parse(wait))
+                .thenApply(attributes -> new LicenseJson(purl, detectedLicense(attributes)));
+    }
+
+    private PackageURL packageUrl(RequestJson body) {
         try {
-            final var purl = new PackageURL(body.purl);
-            final @NullOr String license = getDetectedLicenseOrCreatePackage(purl);
-            return new LicenseJson(purl, license);
+            return new PackageURL(body.purl);
         } catch (MalformedPackageURLException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a valid Package URL: " + body.purl);
         }
@@ -41,14 +58,18 @@ public class LegacyRoute {
 
     private @NullOr String getDetectedLicenseOrCreatePackage(PackageURL purl) {
         try {
-            final @NullOr Object value = service.getAttributes(purl).get("detected_license").value;
-            return toMultilineString(value);
+            return detectedLicense(service.getAttributes(purl));
         } catch (UnknownPackageException e) {
             service.createPackage(purl);
             return null;
         }
     }
 
+    private @NullOr String detectedLicense(Map<String, AttributeDto> attributes) {
+        final @NullOr AttributeDto attribute = attributes.get("detected_licenses");
+        return (attribute != null) ? toMultilineString(attribute.value) : null;
+    }
+
     private @NullOr String toMultilineString(@NullOr Object value) {
         //noinspection unchecked
         return (value != null)
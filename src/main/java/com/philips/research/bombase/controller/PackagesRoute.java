@@ -17,6 +17,7 @@ import pl.tlinkowski.annotation.basic.NullOr;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @CrossOrigin(origins = "*")
@@ -40,6 +41,17 @@ public class PackagesRoute {
         }
     }
 
+    /**
+     * Provides the package after its harvest settled, creating it if it is unknown.
+     * The request is served asynchronously, so no request thread waits for the harvest.
+     */
+    @GetMapping(value = "{purl}", params = "wait")
+    CompletableFuture<PackageJson> awaitPackage(@PathVariable String purl, @RequestParam String wait) {
+        final var pkgUrl = packageUrl(purl);
+        return service.awaitAttributes(pkgUrl, WaitParameter.parse(wait))
+                .thenApply(attributes -> new PackageJson(pkgUrl, attributes));
+    }
+
     @GetMapping()
     ResultJson<PackageJson> findPackages(@RequestParam(required = false) @NullOr String type,
                                          @RequestParam(required = false) @NullOr String ns,
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.philips.research.bombase.core.MetaService.UpdateDto;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class UpdateJson {
+    final String id;
+    final String purl;
+    final List<String> fields;
+
+    UpdateJson(UpdateDto dto) {
+        this.purl = dto.purl.canonicalize();
+        this.id = encode(encode(this.purl));
+        this.fields = dto.fields;
+    }
+
+    private static String encode(String purl) {
+        return URLEncoder.encode(purl, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.MetaService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Streams package modifications as server-sent events, so clients do not need to poll for harvesting results.
+ */
+@RestController
+@CrossOrigin(origins = "*")
+@RequestMapping("/updates")
+public class UpdatesRoute {
+    static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+    private final MetaService service;
+
+    UpdatesRoute(MetaService service) {
+        this.service = service;
+    }
+
+    /**
+     * Emits an "update" event with the modified fields for every modification of a selected package.
+     * Packages are selected by type and/or by explicit package URL; all packages are selected if
+     * neither is provided. The stream ends if the client cannot keep up with the modifications.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamUpdates(@RequestParam(required = false) @NullOr List<String> type,
+                             @RequestParam(required = false) @NullOr List<String> purl) {
+        final var filter = filter(type, purl);
+        final var emitter = new SseEmitter(TIMEOUT.toMillis());
+        final var subscription = service.subscribe(filter, update -> send(emitter, update), emitter::complete);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, MetaService.UpdateDto update) {
+        try {
+            emitter.send(SseEmitter.event().name("update").data(new UpdateJson(update), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Predicate<PackageURL> filter(@NullOr List<String> types, @NullOr List<String> purls) {
+        final Set<String> typeSet = (types != null) ? Set.copyOf(types) : Set.of();
+        final Set<String> purlSet = (purls != null)
+                ? purls.stream().map(this::canonical).collect(Collectors.toSet())
+                : Set.of();
+        if (typeSet.isEmpty() && purlSet.isEmpty()) {
+            return pkg -> true;
+        }
+        return pkg -> typeSet.contains(pkg.getType()) || purlSet.contains(pkg.canonicalize());
+    }
+
+    private String canonical(String purl) {
+        try {
+            return new PackageURL(URLDecoder.decode(purl, StandardCharsets.UTF_8)).canonicalize();
+        } catch (MalformedPackageURLException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Package URL parameter: " + purl);
+        }
+    }
+}
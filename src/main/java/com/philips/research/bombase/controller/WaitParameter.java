@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Parses the "wait" request parameter for awaiting the harvest of a package.
+ */
+final class WaitParameter {
+    /**
+     * Upper bound that stays below the asynchronous request timeout of the servlet container.
+     */
+    static final Duration MAX_WAIT = Duration.ofSeconds(25);
+
+    private WaitParameter() {
+    }
+
+    /**
+     * @param wait duration like "2000ms" or "2s", or milliseconds if no unit is given
+     * @return waiting time, limited to the maximum
+     */
+    static Duration parse(String wait) {
+        try {
+            final var duration = DurationStyle.detectAndParse(wait);
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException("Negative duration");
+            }
+            return (duration.compareTo(MAX_WAIT) > 0) ? MAX_WAIT : duration;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid wait parameter: " + wait);
+        }
+    }
+}
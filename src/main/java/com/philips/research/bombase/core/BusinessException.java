@@ -6,11 +6,41 @@
 package com.philips.research.bombase.core;
 
 public abstract class BusinessException extends RuntimeException {
+    private final boolean temporary;
+
     public BusinessException(String message) {
-        super(message);
+        this(message, false);
     }
 
     public BusinessException(String message, Throwable cause) {
+        this(message, cause, false);
+    }
+
+    /**
+     * @param temporary indicates the failure is expected to disappear, so the operation can be retried later
+     */
+    public BusinessException(String message, boolean temporary) {
+        super(message);
+        this.temporary = temporary;
+    }
+
+    public BusinessException(String message, Throwable cause, boolean temporary) {
         super(message, cause);
+        this.temporary = temporary;
+    }
+
+    /**
+     * @param status HTTP status code of a failed request
+     * @return true if the server is temporarily unable to handle the request (5xx or 429)
+     */
+    public static boolean isTemporaryStatus(int status) {
+        return status >= 500 || status == 429;
+    }
+
+    /**
+     * @return true if the operation can be retried later
+     */
+    public boolean isTemporary() {
+        return temporary;
     }
 }
@@ -8,9 +8,13 @@ package com.philips.research.bombase.core;
 import com.github.packageurl.PackageURL;
 import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * API for managing the storage of metadata.
@@ -32,6 +36,29 @@ public interface MetaService {
      */
     Map<String, AttributeDto> getAttributes(PackageURL purl);
 
+    /**
+     * Reads all stored metadata for a package once its harvesting settled.
+     * Unknown packages are created, and their metadata is provided after
+     * the first harvest.
+     *
+     * @param purl package id
+     * @param wait maximum time to wait for harvesting to settle
+     * @return future value per field, completed when harvesting settled or the wait expired
+     */
+    CompletableFuture<Map<String, AttributeDto>> awaitAttributes(PackageURL purl, Duration wait);
+
+    /**
+     * Subscribes to the modifications of packages by harvesting or clients.
+     * Modifications are delivered by a separate thread. A subscriber that
+     * cannot keep up with the modifications is dropped.
+     *
+     * @param filter   selects the packages of interest
+     * @param consumer receives every modification of a selected package
+     * @param closed   invoked once when the subscription ends
+     * @return subscription to close when no longer interested
+     */
+    Subscription subscribe(Predicate<PackageURL> filter, Consumer<UpdateDto> consumer, Runnable closed);
+
     /**
      * Updates selected attributes of a package.
      * Listeners are automatically notified of changes.
@@ -64,6 +91,18 @@ public interface MetaService {
         public Instant updated;
     }
 
+    interface Subscription {
+        /**
+         * Stops the delivery of modifications.
+         */
+        void close();
+    }
+
+    class UpdateDto {
+        public PackageURL purl;
+        public List<String> fields;
+    }
+
     class AttributeDto {
         public @NullOr Object value;
         public int score;
@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core;
+
+import com.philips.research.bombase.core.meta.MetaException;
+
+/**
+ * Indicates the service cannot accept more work at this moment.
+ */
+public class QueueFullException extends MetaException {
+    public QueueFullException(String message) {
+        super(message);
+    }
+}
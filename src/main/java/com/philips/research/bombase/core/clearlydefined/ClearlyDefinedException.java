@@ -15,4 +15,12 @@ public class ClearlyDefinedException extends BusinessException {
     public ClearlyDefinedException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    public ClearlyDefinedException(String message, boolean temporary) {
+        super(message, temporary);
+    }
+
+    public ClearlyDefinedException(String message, Throwable cause, boolean temporary) {
+        super(message, cause, temporary);
+    }
 }
@@ -10,12 +10,15 @@ import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Trust;
 import pl.tlinkowski.annotation.basic.NullOr;
 import retrofit2.Call;
+import retrofit2.http.Body;
 import retrofit2.http.GET;
+import retrofit2.http.POST;
 import retrofit2.http.Path;
 
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -27,6 +30,13 @@ public interface ClearlyDefinedAPI {
     Call<ResponseJson> getDefinition(@Path("type") String type, @Path("provider") String provider, @Path("namespace") String namespace,
                                      @Path("name") String name, @Path("revision") String revision);
 
+    /**
+     * @param coordinates list of "type/provider/namespace/name/revision" coordinates
+     * @return definition per coordinates
+     */
+    @POST("definitions")
+    Call<Map<String, ResponseJson>> getDefinitions(@Body List<String> coordinates);
+
     @SuppressWarnings("NotNullFieldNotInitialized")
     class ResponseJson implements PackageMetadata {
         DescribedJson described;
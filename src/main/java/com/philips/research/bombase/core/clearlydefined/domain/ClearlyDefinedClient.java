@@ -14,17 +14,25 @@ import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.clearlydefined.ClearlyDefinedException;
 import com.philips.research.bombase.core.meta.PackageMetadata;
+import okhttp3.OkHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import pl.tlinkowski.annotation.basic.NullOr;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.philips.research.bombase.core.BusinessException.isTemporaryStatus;
 
 @Component
 class ClearlyDefinedClient {
@@ -47,40 +55,84 @@ class ClearlyDefinedClient {
 
     private final ClearlyDefinedAPI rest;
 
-    ClearlyDefinedClient() {
-        this(URI.create("https://api.clearlydefined.io"));
+    @Autowired
+    ClearlyDefinedClient(OkHttpClient client) {
+        this(URI.create("https://api.clearlydefined.io"), client);
     }
 
     ClearlyDefinedClient(URI uri) {
+        this(uri, new OkHttpClient());
+    }
+
+    ClearlyDefinedClient(URI uri, OkHttpClient client) {
         final var retrofit = new Retrofit.Builder()
                 .baseUrl(uri.toASCIIString())
+                .client(client)
                 .addConverterFactory(JacksonConverterFactory.create(MAPPER))
                 .build();
         rest = retrofit.create(ClearlyDefinedAPI.class);
     }
 
     Optional<PackageMetadata> getPackageMetadata(PackageURL purl) {
-        final var type = TYPE_MAPPING.getOrDefault(purl.getType().toLowerCase(), purl.getType());
-        final var provider = PROVIDER_MAPPING.getOrDefault(type.toLowerCase(), type);
-        final var namespace = purl.getNamespace();
-        final var ns = (namespace == null || namespace.isEmpty()) ? "-" : namespace;
-        return query(rest.getDefinition(type, provider, ns, purl.getName(), purl.getVersion()))
+        final var type = type(purl);
+        return query(rest.getDefinition(type, provider(type), namespace(purl), purl.getName(), purl.getVersion()))
                 .filter(ClearlyDefinedAPI.ResponseJson::isValid)
                 .map(meta -> meta);
     }
 
+    /**
+     * Reads the definitions of multiple packages in a single request.
+     *
+     * @return metadata per package, skipping packages without a valid definition
+     */
+    Map<PackageURL, PackageMetadata> getPackagesMetadata(Collection<PackageURL> purls) {
+        final var coordinates = new HashMap<String, PackageURL>();
+        purls.forEach(purl -> coordinates.put(coordinates(purl).toLowerCase(), purl));
+        final var definitions = query(rest.getDefinitions(purls.stream()
+                .map(this::coordinates)
+                .collect(Collectors.toList())))
+                .orElse(Map.of());
+        final var result = new HashMap<PackageURL, PackageMetadata>();
+        definitions.forEach((key, definition) -> {
+            final @NullOr PackageURL purl = coordinates.get(key.toLowerCase());
+            if (purl != null && definition.isValid()) {
+                result.put(purl, definition);
+            }
+        });
+        return result;
+    }
+
+    private String coordinates(PackageURL purl) {
+        final var type = type(purl);
+        return String.join("/", type, provider(type), namespace(purl), purl.getName(), purl.getVersion());
+    }
+
+    private String type(PackageURL purl) {
+        return TYPE_MAPPING.getOrDefault(purl.getType().toLowerCase(), purl.getType());
+    }
+
+    private String provider(String type) {
+        return PROVIDER_MAPPING.getOrDefault(type.toLowerCase(), type);
+    }
+
+    private String namespace(PackageURL purl) {
+        final var namespace = purl.getNamespace();
+        return (namespace == null || namespace.isEmpty()) ? "-" : namespace;
+    }
+
     private <T> Optional<T> query(Call<? extends T> query) {
         try {
             final var response = query.execute();
             if (!response.isSuccessful()) {
                 LOG.info("Query={}", response.raw().request().url());
-                throw new ClearlyDefinedException("ClearlyDefined server responded with status " + response.code());
+                throw new ClearlyDefinedException("ClearlyDefined server responded with status " + response.code(),
+                        isTemporaryStatus(response.code()));
             }
             return Optional.ofNullable(response.body());
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("JSON formatting error", e);
         } catch (IOException e) {
-            throw new ClearlyDefinedException("ClearlyDefined is not reachable");
+            throw new ClearlyDefinedException("ClearlyDefined is not reachable", e, true);
         }
     }
 }
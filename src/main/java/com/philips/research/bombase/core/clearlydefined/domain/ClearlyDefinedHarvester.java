@@ -5,10 +5,12 @@
 
 package com.philips.research.bombase.core.clearlydefined.domain;
 
+import com.philips.research.bombase.ConfigProperties;
 import com.philips.research.bombase.core.meta.AbstractRepoHarvester;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Set;
 
 @Service
@@ -16,10 +18,32 @@ public class ClearlyDefinedHarvester extends AbstractRepoHarvester {
     private static final Set<String> SUPPORTED_TYPES = Set.of("npm", "gem", "pypi", "maven", "nuget", "github", "cargo", "deb", "composer", "cocoapods");
 
     @Autowired
+    ClearlyDefinedHarvester(ClearlyDefinedClient client, ConfigProperties properties) {
+        super(batched(client, batchSize(properties), properties.getClearlyDefinedBatchWindow()));
+    }
+
     ClearlyDefinedHarvester(ClearlyDefinedClient client) {
         super(client::getPackageMetadata);
     }
 
+    /**
+     * @return batch size that can be filled by the concurrent tasks allowed by the bulkhead of this harvester
+     */
+    private static int batchSize(ConfigProperties properties) {
+        final var limit = properties.getBulkhead(ClearlyDefinedHarvester.class.getSimpleName()).getLimit();
+        return Math.min(properties.getClearlyDefinedBatchSize(), limit);
+    }
+
+    /**
+     * @return client that reads definitions in bulk, unless batches are limited to a single package
+     */
+    private static Client batched(ClearlyDefinedClient client, int size, Duration window) {
+        if (size <= 1) {
+            return client::getPackageMetadata;
+        }
+        return new DefinitionBatcher(client::getPackagesMetadata, client::getPackageMetadata, size, window)::read;
+    }
+
     @Override
     protected boolean isSupportedType(String type) {
         return SUPPORTED_TYPES.contains(type);
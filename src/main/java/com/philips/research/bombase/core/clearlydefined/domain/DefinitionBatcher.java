@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.clearlydefined.domain;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.BusinessException;
+import com.philips.research.bombase.core.meta.PackageMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Combines the definition reads of concurrent harvesting tasks into bulk requests.
+ * <p>
+ * A read joins the pending batch, which is sent when it is full or when the
+ * window after its first read expired. The reading task blocks until the
+ * bulk response arrived, so every task still edits its own package. Reads of
+ * the same package in a pending batch share a single result. A failing bulk
+ * request fails all reads of its batch, so no task keeps waiting. If the bulk
+ * request was rejected for a reason that is not temporary, every task reads
+ * its own package instead, so a single bad package cannot fail the others.
+ */
+class DefinitionBatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(DefinitionBatcher.class);
+
+    private final Function<Collection<PackageURL>, Map<PackageURL, PackageMetadata>> bulk;
+    private final Function<PackageURL, Optional<PackageMetadata>> single;
+    private final int size;
+    private final long windowMillis;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "clearlydefined-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService sender = Executors.newCachedThreadPool(runnable -> {
+        final var thread = new Thread(runnable, "clearlydefined-bulk");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private @NullOr Batch pending;
+
+    /**
+     * @param bulk   reads the definitions of multiple packages
+     * @param single reads the definition of a single package, if the bulk request was rejected
+     * @param size   maximum number of packages per bulk request
+     * @param window maximum time a read waits for other reads to join its batch
+     */
+    DefinitionBatcher(Function<Collection<PackageURL>, Map<PackageURL, PackageMetadata>> bulk,
+                      Function<PackageURL, Optional<PackageMetadata>> single, int size, Duration window) {
+        this.bulk = bulk;
+        this.single = single;
+        this.size = size;
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * Reads the definition of a package as part of a batch.
+     *
+     * @return metadata of the package, if defined
+     */
+    Optional<PackageMetadata> read(PackageURL purl) {
+        final CompletableFuture<Optional<PackageMetadata>> result;
+        @NullOr Batch full = null;
+        synchronized (this) {
+            var batch = pending;
+            if (batch == null) {
+                batch = new Batch();
+                pending = batch;
+                final var scheduled = batch;
+                timer.schedule(() -> expired(scheduled), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            result = batch.reads.computeIfAbsent(purl, (key) -> new CompletableFuture<>());
+            if (batch.reads.size() >= size) {
+                pending = null;
+                full = batch;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        try {
+            return await(result);
+        } catch (BusinessException e) {
+            if (e.isTemporary()) {
+                throw e;
+            }
+            LOG.debug("Reading ClearlyDefined definition of {} on its own; bulk request failed: {}", purl, e.getMessage());
+            return single.apply(purl);
+        }
+    }
+
+    private void expired(Batch batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = null;
+        }
+        sender.execute(() -> send(batch));
+    }
+
+    private void send(Batch batch) {
+        try {
+            LOG.debug("Reading {} ClearlyDefined definitions in bulk", batch.reads.size());
+            final var definitions = bulk.apply(batch.reads.keySet());
+            batch.reads.forEach((purl, read) -> read.complete(Optional.ofNullable(definitions.get(purl))));
+        } catch (RuntimeException e) {
+            batch.reads.values().forEach(read -> read.completeExceptionally(e));
+        } finally {
+            final var incomplete = new IllegalStateException("Bulk read of ClearlyDefined definitions did not complete");
+            batch.reads.values().forEach(read -> read.completeExceptionally(incomplete));
+        }
+    }
+
+    private Optional<PackageMetadata> await(CompletableFuture<Optional<PackageMetadata>> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class Batch {
+        final Map<PackageURL, CompletableFuture<Optional<PackageMetadata>>> reads = new LinkedHashMap<>();
+    }
+}
@@ -15,4 +15,12 @@ public class DebianException extends BusinessException {
     public DebianException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    public DebianException(String message, boolean temporary) {
+        super(message, temporary);
+    }
+
+    public DebianException(String message, Throwable cause, boolean temporary) {
+        super(message, cause, temporary);
+    }
 }
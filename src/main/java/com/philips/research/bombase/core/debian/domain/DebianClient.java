@@ -12,18 +12,41 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.ConfigProperties;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.debian.DebianException;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import pl.tlinkowski.annotation.basic.NullOr;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Optional;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 
+import static com.philips.research.bombase.core.BusinessException.isTemporaryStatus;
+
+/**
+ * Reads package metadata from Launchpad.
+ * <p>
+ * A binary package resolves via its source package to the project holding
+ * the metadata. Since these lookups depend on each other, they cannot run
+ * concurrently. Instead, the active series is cached for some time, and the
+ * binary-to-source and source-to-project mappings are remembered per series,
+ * because many binary packages share the same source package. Once warmed
+ * up, most packages only need a single request for the project.
+ * When the cached series expires, a single thread looks it up again, while
+ * the other threads keep using the previous series.
+ */
 @Component
 public class DebianClient {
     private static final ObjectMapper MAPPER = new ObjectMapper()
@@ -31,17 +54,44 @@ public class DebianClient {
             .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.NON_PRIVATE)
             .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
 
+    private static final Duration DEFAULT_SERIES_TTL = Duration.ofDays(1);
+    private static final int DEFAULT_MAPPING_CACHE_SIZE = 10_000;
+
     private final DebianAPI rest;
+    private final long seriesTtlMillis;
+    private final LongSupplier clock;
+    private final Map<String, String> sources;
+    private final Map<String, Optional<String>> projects;
+    private final AtomicBoolean refreshingSeries = new AtomicBoolean();
+    private volatile @NullOr ActiveSeries series;
 
     private static final String baseApiUrl = "https://api.launchpad.net/1.0/";
 
-    DebianClient() {
-        this(URI.create(baseApiUrl));
+    @Autowired
+    DebianClient(OkHttpClient client, ConfigProperties properties) {
+        this(URI.create(baseApiUrl), client, properties.getDebianSeriesTtl(), properties.getDebianMappingCacheSize(), System::currentTimeMillis);
     }
 
     DebianClient(URI uri) {
+        this(uri, new OkHttpClient());
+    }
+
+    DebianClient(URI uri, OkHttpClient client) {
+        this(uri, client, DEFAULT_SERIES_TTL, DEFAULT_MAPPING_CACHE_SIZE, System::currentTimeMillis);
+    }
+
+    /**
+     * @param seriesTtl   time until the active series is looked up again
+     * @param mappingSize maximum number of remembered source and project names
+     */
+    DebianClient(URI uri, OkHttpClient client, Duration seriesTtl, int mappingSize, LongSupplier clock) {
+        this.seriesTtlMillis = seriesTtl.toMillis();
+        this.clock = clock;
+        this.sources = lru(mappingSize);
+        this.projects = lru(mappingSize);
         final var retrofit = new Retrofit.Builder()
                 .baseUrl(uri.toASCIIString())
+                .client(client)
                 .addConverterFactory(JacksonConverterFactory.create(MAPPER))
                 .build();
         rest = retrofit.create(DebianAPI.class);
@@ -51,34 +101,113 @@ public class DebianClient {
         final Map<String, String> qualifiers = purl.getQualifiers();
         final String distro = "ubuntu";
         final String packageName = purl.getName();
-        final var allSeries = query(rest.series(distro)).get().entries;
-        if (allSeries.size() == 0) {
+        final var seriesName = activeSeries(distro);
+        if (seriesName.isEmpty()) {
+            return Optional.empty();
+        }
+        String arch = qualifiers != null ? qualifiers.getOrDefault("arch", "amd64") : "amd64";
+        if (arch.equals("all")) {
+            arch = "amd64";
+        }
+        final var sourceName = sourceName(distro, seriesName.get(), arch, packageName);
+        if (sourceName.isEmpty()) {
+            return Optional.empty();
+        }
+        final var projectName = projectName(distro, seriesName.get(), sourceName.get());
+        if (projectName.isEmpty()) {
             return Optional.empty();
         }
-        String seriesName = "noble";
-        for ( var serie : allSeries ) {
+        return query(rest.getProject(projectName.get()));
+    }
+
+    /**
+     * @return name of the first active released series, which is cached for the configured time
+     */
+    private Optional<String> activeSeries(String distro) {
+        final var now = clock.getAsLong();
+        final var cached = series;
+        if (cached != null && now < cached.expires) {
+            return Optional.of(cached.name);
+        }
+        final var refreshing = refreshingSeries.compareAndSet(false, true);
+        if (!refreshing && cached != null) {
+            return Optional.of(cached.name);
+        }
+        try {
+            final var name = querySeries(distro);
+            name.ifPresent(n -> series = new ActiveSeries(n, now + seriesTtlMillis));
+            return name;
+        } finally {
+            if (refreshing) {
+                refreshingSeries.set(false);
+            }
+        }
+    }
+
+    private Optional<String> querySeries(String distro) {
+        final var collection = query(rest.series(distro));
+        if (collection.isEmpty() || collection.get().entries.size() == 0) {
+            return Optional.empty();
+        }
+        String name = "noble";
+        for ( var serie : collection.get().entries ) {
             if (serie.active && serie.datereleased != null) {
-                seriesName = serie.name;
+                name = serie.name;
                 break;
             }
         }
-        String arch = qualifiers != null ? qualifiers.getOrDefault("arch", "amd64") : "amd64";
-        if (arch.equals("all")) {
-            arch = "amd64";
+        return Optional.of(name);
+    }
+
+    /**
+     * @return name of the source package that builds the binary package
+     */
+    private Optional<String> sourceName(String distro, String seriesName, String arch, String packageName) {
+        final var key = seriesName + '/' + arch + '/' + packageName;
+        final @NullOr String cached = sources.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
         }
         final String distroArchSeries = baseApiUrl + distro + "/" + seriesName + "/" + arch;
         final var sourcePackagesCollection = query(rest.getSourcePackages(distro, '"' + distroArchSeries + '"', '"' + packageName + '"'));
+        if (sourcePackagesCollection.isEmpty()) {
+            return Optional.empty();
+        }
         final var sourcePackagesEntries = sourcePackagesCollection.get().entries;
         if (sourcePackagesEntries.size() == 0) {
             return Optional.empty();
         }
         final String sourceName = sourcePackagesEntries.get(0).source_package_name;
+        sources.put(key, sourceName);
+        return Optional.of(sourceName);
+    }
+
+    /**
+     * @return name of the project of the source package, if the source package is linked to a project
+     */
+    private Optional<String> projectName(String distro, String seriesName, String sourceName) {
+        final var key = seriesName + '/' + sourceName;
+        final @NullOr Optional<String> cached = projects.get(key);
+        if (cached != null) {
+            return cached;
+        }
         final var source = query(rest.getSource(distro, seriesName, sourceName));
-        if (source.isEmpty() || source.get() == null || source.get().productseries_link == null) {
+        if (source.isEmpty() || source.get() == null) {
             return Optional.empty();
         }
-        final String projectName = source.get().productseries_link.toString().replace(baseApiUrl, "").replaceAll("/.*", "");
-        return query(rest.getProject(projectName));
+        final Optional<String> projectName = Optional.ofNullable(source.get().productseries_link)
+                .map(link -> link.toString().replace(baseApiUrl, "").replaceAll("/.*", ""));
+        projects.put(key, projectName);
+        return projectName;
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        });
     }
 
     private <T> Optional<T> query(Call<? extends T> query) {
@@ -88,13 +217,23 @@ public class DebianClient {
                 return Optional.empty();
             }
             if (!response.isSuccessful()) {
-                throw new DebianException("Debian server responded with status " + response.code());
+                throw new DebianException("Debian server responded with status " + response.code(), isTemporaryStatus(response.code()));
             }
             return Optional.ofNullable(response.body());
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("JSON formatting error", e);
         } catch (IOException e) {
-            throw new DebianException("Debian is not reachable");
+            throw new DebianException("Debian is not reachable", e, true);
+        }
+    }
+
+    private static class ActiveSeries {
+        final String name;
+        final long expires;
+
+        ActiveSeries(String name, long expires) {
+            this.name = name;
+            this.expires = expires;
         }
     }
 }
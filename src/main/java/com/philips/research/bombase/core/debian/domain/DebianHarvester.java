@@ -6,14 +6,15 @@
 package com.philips.research.bombase.core.debian.domain;
 
 import com.philips.research.bombase.core.meta.AbstractRepoHarvester;
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class DebianHarvester extends AbstractRepoHarvester {
     @Autowired
-    DebianHarvester(DebianClient client) {
-        super(client::getPackageMetadata);
+    DebianHarvester(DebianClient client, NegativeCache unknown) {
+        super(client::getPackageMetadata, unknown);
     }
 
     @Override
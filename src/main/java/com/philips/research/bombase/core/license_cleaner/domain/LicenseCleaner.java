@@ -8,6 +8,7 @@ package com.philips.research.bombase.core.license_cleaner.domain;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.license_cleaner.LicenseCleanerStore;
 import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Interest;
 import com.philips.research.bombase.core.meta.registry.MetaRegistry;
 import com.philips.research.bombase.core.meta.registry.PackageAttributeEditor;
 import com.philips.research.bombase.core.scanner.ScannerService;
@@ -40,6 +41,11 @@ public class LicenseCleaner implements MetaRegistry.PackageListener {
         this.scanner = scanner;
     }
 
+    @Override
+    public Interest getInterest() {
+        return Interest.modified(Field.DECLARED_LICENSE).produces(Set.of(Field.DECLARED_LICENSE));
+    }
+
     @Override
     public Optional<Consumer<PackageAttributeEditor>> onUpdated(PackageURL purl, Set<Field> updated, Map<Field, Object> values) {
         final var current = (String) values.getOrDefault(Field.DECLARED_LICENSE, "");
@@ -15,4 +15,12 @@ public class MavenException extends BusinessException {
     public MavenException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    public MavenException(String message, boolean temporary) {
+        super(message, temporary);
+    }
+
+    public MavenException(String message, Throwable cause, boolean temporary) {
+        super(message, cause, temporary);
+    }
 }
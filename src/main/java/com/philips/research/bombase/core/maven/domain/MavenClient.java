@@ -13,6 +13,9 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.maven.MavenException;
 import com.philips.research.bombase.core.meta.PackageMetadata;
+import com.philips.research.bombase.core.support.HttpCache;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,11 +23,10 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.Optional;
 
+import static com.philips.research.bombase.core.BusinessException.isTemporaryStatus;
+
 @Component
 public class MavenClient {
     private static final Logger LOG = LoggerFactory.getLogger(MavenClient.class);
@@ -32,43 +34,49 @@ public class MavenClient {
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
             .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.NON_PRIVATE);
 
-    private final HttpClient client;
+    private final OkHttpClient client;
     private final URI baseUri;
 
     @Autowired
-    MavenClient() {
-        this("https://repo1.maven.org/maven2/");
+    MavenClient(OkHttpClient client) {
+        this("https://repo1.maven.org/maven2/", client);
     }
 
     MavenClient(String baseUri) {
-        client = HttpClient.newHttpClient();
+        this(baseUri, new OkHttpClient());
+    }
+
+    MavenClient(String baseUri, OkHttpClient client) {
+        this.client = client;
         this.baseUri = URI.create(baseUri + '/');
     }
 
     Optional<PackageMetadata> getPackageMetadata(PackageURL purl) {
-        try {
-            final HttpRequest request = pomRequest(purl);
-            final var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            switch (response.statusCode()) {
+        final var request = pomRequest(purl);
+        try (final var response = client.newCall(request).execute()) {
+            switch (response.code()) {
                 case 404:
                     return Optional.empty();
                 case 200:
-                    return Optional.of(MAPPER.readValue(response.body(), PomXml.class));
+                    return Optional.of(MAPPER.readValue(response.body().byteStream(), PomXml.class));
                 default:
-                    LOG.info("Query={}", request.uri());
-                    throw new MavenException("Maven server responded with status " + response.statusCode());
+                    LOG.info("Query={}", request.url());
+                    throw new MavenException("Maven server responded with status " + response.code(),
+                            isTemporaryStatus(response.code()));
             }
-        } catch (IOException | InterruptedException e) {
-            throw new MavenException("Maven server is not reachable", e);
+        } catch (IOException e) {
+            throw new MavenException("Maven server is not reachable", e, true);
         }
     }
 
-    private HttpRequest pomRequest(PackageURL purl) {
+    private Request pomRequest(PackageURL purl) {
         final var path = purl.getNamespace().replaceAll("\\.", "/");
         final var name = purl.getName();
         final var version = purl.getVersion();
         final var pom = String.format("%s-%s.pom", name, version);
         final var uri = baseUri.resolve(path + '/').resolve(name + '/').resolve(version + '/').resolve(pom);
-        return HttpRequest.newBuilder(uri).GET().build();
+        return new Request.Builder().url(uri.toString())
+                .header(HttpCache.IMMUTABLE_HEADER, "true")
+                .get().build();
     }
 }
@@ -6,14 +6,15 @@
 package com.philips.research.bombase.core.maven.domain;
 
 import com.philips.research.bombase.core.meta.AbstractRepoHarvester;
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MavenHarvester extends AbstractRepoHarvester {
     @Autowired
-    MavenHarvester(MavenClient client) {
-        super(client::getPackageMetadata);
+    MavenHarvester(MavenClient client, NegativeCache unknown) {
+        super(client::getPackageMetadata, unknown);
     }
 
     @Override
@@ -6,13 +6,16 @@
 package com.philips.research.bombase.core.meta;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.BusinessException;
 import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Interest;
 import com.philips.research.bombase.core.meta.registry.MetaRegistry;
 import com.philips.research.bombase.core.meta.registry.PackageAttributeEditor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -23,11 +26,30 @@ import java.util.function.Consumer;
  */
 public abstract class AbstractRepoHarvester implements MetaRegistry.PackageListener {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractRepoHarvester.class);
+    private static final Set<Field> HARVESTED_FIELDS = EnumSet.of(Field.TITLE, Field.DESCRIPTION, Field.SOURCE_LOCATION,
+            Field.DOWNLOAD_LOCATION, Field.HOME_PAGE, Field.ATTRIBUTION, Field.DECLARED_LICENSE, Field.DETECTED_LICENSES,
+            Field.SHA1, Field.SHA256, Field.SHA512);
 
     private final Client client;
+    private final NegativeCache unknown;
+    private final String source;
 
     public AbstractRepoHarvester(Client client) {
+        this(client, NegativeCache.NONE);
+    }
+
+    /**
+     * @param unknown remembers the packages the source did not know, to skip harvesting them for a while
+     */
+    public AbstractRepoHarvester(Client client, NegativeCache unknown) {
         this.client = client;
+        this.unknown = unknown;
+        this.source = getClass().getSimpleName();
+    }
+
+    @Override
+    public Interest getInterest() {
+        return Interest.created().forTypes(this::isSupportedType).produces(HARVESTED_FIELDS);
     }
 
     @Override
@@ -35,6 +57,10 @@ public abstract class AbstractRepoHarvester implements MetaRegistry.PackageListe
         if (!isSupportedType(purl.getType()) || !updated.isEmpty()) {
             return Optional.empty();
         }
+        if (unknown.isMissing(source, purl)) {
+            LOG.info("Skipped {}; recently not found by {}", purl, source);
+            return Optional.empty();
+        }
 
         return Optional.of(pkg -> harvest(purl, pkg));
     }
@@ -59,7 +85,15 @@ public abstract class AbstractRepoHarvester implements MetaRegistry.PackageListe
                 def.getSha1().ifPresent(sha -> editor.update(Field.SHA1, def.trust(Field.SHA1), sha));
                 def.getSha256().ifPresent(sha -> editor.update(Field.SHA256, def.trust(Field.SHA256), sha));
                 def.getSha512().ifPresent(sha -> editor.update(Field.SHA512, def.trust(Field.SHA512), sha));
-            }, () -> LOG.info("No metadata for {}", purl));
+            }, () -> {
+                LOG.info("No metadata for {}", purl);
+                unknown.missing(source, purl);
+            });
+        } catch (BusinessException e) {
+            if (e.isTemporary()) {
+                throw new SourceUnavailableException("Failed to harvest " + purl, e);
+            }
+            throw new MetaException("Failed to harvest " + purl, e);
         } catch (Exception e) {
             throw new MetaException("Failed to harvest " + purl, e);
         }
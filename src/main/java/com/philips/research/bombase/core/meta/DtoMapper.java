@@ -5,11 +5,17 @@
 
 package com.philips.research.bombase.core.meta;
 
+import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.MetaService.AttributeDto;
 import com.philips.research.bombase.core.MetaService.PackageDto;
+import com.philips.research.bombase.core.MetaService.UpdateDto;
 import com.philips.research.bombase.core.meta.registry.AttributeValue;
+import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Package;
 
+import java.util.Set;
+import java.util.stream.Collectors;
+
 public abstract class DtoMapper {
     static PackageDto toBaseDto(Package pkg) {
         final var dto = new PackageDto();
@@ -26,4 +32,14 @@ public abstract class DtoMapper {
         value.getAltValue().ifPresent(v -> dto.altValue = v);
         return dto;
     }
+
+    static UpdateDto toDto(PackageURL purl, Set<Field> fields) {
+        final var dto = new UpdateDto();
+        dto.purl = purl;
+        dto.fields = fields.stream()
+                .map(field -> field.name().toLowerCase())
+                .sorted()
+                .collect(Collectors.toList());
+        return dto;
+    }
 }
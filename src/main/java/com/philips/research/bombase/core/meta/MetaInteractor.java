@@ -28,9 +28,14 @@ import org.springframework.stereotype.Service;
 import pl.tlinkowski.annotation.basic.NullOr;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
@@ -64,6 +69,8 @@ public class MetaInteractor implements MetaService {
         if (properties.isScanLicenses()) {
             installListener(SourceLicensesHarvester.class);
         }
+        registry.resumeUnfinishedTasks(properties.getJournalReplayLimit());
+        registry.startRefresh();
     }
 
     private void installListener(Class<? extends MetaRegistry.PackageListener> listener) {
@@ -85,6 +92,23 @@ public class MetaInteractor implements MetaService {
         return values;
     }
 
+    @Override
+    public CompletableFuture<Map<String, AttributeDto>> awaitAttributes(PackageURL purl, Duration wait) {
+        if (registry.getAttributeValues(purl).isEmpty()) {
+            createPackage(purl);
+        }
+        return registry.awaitHarvest(purl)
+                .completeOnTimeout(null, wait.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(settled -> getAttributes(purl));
+    }
+
+    @Override
+    public Subscription subscribe(Predicate<PackageURL> filter, Consumer<UpdateDto> consumer, Runnable closed) {
+        final var subscription = registry.subscribe(filter,
+                (purl, fields) -> consumer.accept(DtoMapper.toDto(purl, fields)), closed);
+        return subscription::close;
+    }
+
     @Override
     public Map<String, AttributeDto> setAttributes(PackageURL purl, Map<String, @NullOr Object> values) {
         registry.edit(purl, pkg -> values.forEach((key, value) -> {
@@ -12,6 +12,7 @@ import com.philips.research.bombase.core.meta.registry.Package;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Persistence API for the metadata domain.
@@ -64,4 +65,11 @@ public interface MetaStore {
      * @return search results
      */
     List<Package> findPackages(String type, String namespace, String name, String version);
+
+    /**
+     * Lists all stored packages, including the packages restored when the store was opened.
+     *
+     * @return all persistent package instances
+     */
+    Stream<Package> allPackages();
 }
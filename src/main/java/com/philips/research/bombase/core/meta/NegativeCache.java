@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.ConfigProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers packages that a source does not know, to avoid asking the source again for some time.
+ * <p>
+ * All entries share the same lifetime, so the entries are ordered by their
+ * expiry and expired entries are purged from the head. If the cache is full,
+ * the entry that expires first is evicted.
+ */
+@Component
+public class NegativeCache implements MeterBinder {
+    /**
+     * Cache that never remembers anything.
+     */
+    public static final NegativeCache NONE = new NegativeCache(Duration.ZERO, 0, System::currentTimeMillis);
+
+    private final long ttlMillis;
+    private final int capacity;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Key, Long> entries = new LinkedHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+
+    @Autowired
+    NegativeCache(ConfigProperties properties) {
+        this(properties.getNegativeCacheTtl(), properties.getNegativeCacheSize(), System::currentTimeMillis);
+    }
+
+    NegativeCache(Duration ttl, int capacity, LongSupplier clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.capacity = capacity;
+        this.clock = clock;
+    }
+
+    /**
+     * Remembers that the source does not know the package.
+     */
+    public synchronized void missing(String source, PackageURL purl) {
+        if (ttlMillis <= 0 || capacity <= 0) {
+            return;
+        }
+        final var now = clock.getAsLong();
+        final var key = new Key(source, purl);
+        entries.remove(key);
+        purge(now);
+        if (entries.size() >= capacity) {
+            final var eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        entries.put(key, now + ttlMillis);
+    }
+
+    /**
+     * @return true if the source recently did not know the package
+     */
+    public synchronized boolean isMissing(String source, PackageURL purl) {
+        final var key = new Key(source, purl);
+        final @NullOr Long expires = entries.get(key);
+        if (expires == null) {
+            return false;
+        }
+        if (expires <= clock.getAsLong()) {
+            entries.remove(key);
+            return false;
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void purge(long now) {
+        final Iterator<Map.Entry<Key, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext() && it.next().getValue() <= now) {
+            it.remove();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("harvest.negative.size", this, NegativeCache::size)
+                .description("Number of packages remembered as unknown to a source")
+                .register(registry);
+        FunctionCounter.builder("harvest.negative.hits", hits, AtomicLong::get)
+                .description("Harvests skipped because the source recently did not know the package")
+                .register(registry);
+    }
+
+    private static class Key {
+        final String source;
+        final PackageURL purl;
+
+        Key(String source, PackageURL purl) {
+            this.source = source;
+            this.purl = purl;
+        }
+
+        @Override
+        public boolean equals(@NullOr Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return source.equals(key.source) && purl.equals(key.purl);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, purl);
+        }
+    }
+}
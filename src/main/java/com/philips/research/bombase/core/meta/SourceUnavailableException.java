@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta;
+
+/**
+ * Indicates a harvesting task failed because its upstream source did not respond properly,
+ * so the task can be retried later.
+ */
+public class SourceUnavailableException extends MetaException {
+    public SourceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Priority;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Persistence API for the harvesting tasks that have not completed yet.
+ * <p>
+ * Every request for a task is recorded with a sequence number. A completed
+ * task covers all requests for the same package and listener up to the
+ * sequence number at the start of its (last) execution, because these
+ * requests were merged into that execution.
+ */
+public interface TaskJournal {
+    /**
+     * Journal that does not keep any tasks.
+     */
+    TaskJournal NONE = new TaskJournal() {
+        @Override
+        public long requested(PackageURL purl, String listener, Priority priority, Set<Field> fields) {
+            return 0;
+        }
+
+        @Override
+        public long position() {
+            return 0;
+        }
+
+        @Override
+        public void completed(PackageURL purl, String listener, long covered) {
+        }
+
+        @Override
+        public List<Task> unfinished() {
+            return List.of();
+        }
+    };
+
+    /**
+     * Records the request for a harvesting task.
+     *
+     * @param purl     package to harvest
+     * @param listener name of the listener that provides the task
+     * @param priority lane of the task
+     * @param fields   modified fields that triggered the task (empty for a new package)
+     * @return sequence number of the request
+     */
+    long requested(PackageURL purl, String listener, Priority priority, Set<Field> fields);
+
+    /**
+     * @return sequence number of the latest request
+     */
+    long position();
+
+    /**
+     * Records the completion of a harvesting task.
+     *
+     * @param covered sequence number of the latest request handled by the task
+     */
+    void completed(PackageURL purl, String listener, long covered);
+
+    /**
+     * @return all requested tasks that did not complete, in order of priority and request
+     */
+    List<Task> unfinished();
+
+    /**
+     * Unfinished harvesting task.
+     */
+    final class Task {
+        private final long sequence;
+        private final PackageURL purl;
+        private final String listener;
+        private final Priority priority;
+        private final Set<Field> fields;
+
+        public Task(long sequence, PackageURL purl, String listener, Priority priority, Set<Field> fields) {
+            this.sequence = sequence;
+            this.purl = purl;
+            this.listener = listener;
+            this.priority = priority;
+            this.fields = fields;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public PackageURL getPurl() {
+            return purl;
+        }
+
+        public String getListener() {
+            return listener;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public Set<Field> getFields() {
+            return fields;
+        }
+    }
+}
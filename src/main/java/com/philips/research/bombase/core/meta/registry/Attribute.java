@@ -9,9 +9,13 @@ import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 /**
  * Current metadata value for a field.
+ * <p>
+ * All access is synchronized, so concurrent updates are applied atomically
+ * and readers never observe a partially applied update.
  */
 public class Attribute<T> implements AttributeValue<T> {
     private final Field field;
@@ -19,34 +23,53 @@ public class Attribute<T> implements AttributeValue<T> {
     private @NullOr T value;
     private int altScore;
     private @NullOr T altValue;
+    private int revision;
 
     public Attribute(Field field) {
         this.field = field;
     }
 
+    /**
+     * Restores a previously persisted attribute.
+     */
+    public Attribute(Field field, int score, @NullOr T value, int altScore, @NullOr T altValue) {
+        this.field = field;
+        this.score = score;
+        this.value = field.validate(value);
+        this.altScore = altScore;
+        this.altValue = field.validate(altValue);
+    }
+
     public Field getField() {
         return this.field;
     }
 
-    public Optional<T> getValue() {
+    public synchronized Optional<T> getValue() {
         return Optional.ofNullable(value);
     }
 
     @Override
-    public int getScore() {
+    public synchronized int getScore() {
         return score;
     }
 
     @Override
-    public Optional<T> getAltValue() {
+    public synchronized Optional<T> getAltValue() {
         return Optional.ofNullable((altScore > 0) ? altValue : null);
     }
 
     @Override
-    public int getAltScore() {
+    public synchronized int getAltScore() {
         return altScore;
     }
 
+    /**
+     * @return counter that changes whenever the value, the alternative value, or their scores change
+     */
+    synchronized int getRevision() {
+        return revision;
+    }
+
     /**
      * Potentially updates the current and alternative value.
      *
@@ -54,7 +77,7 @@ public class Attribute<T> implements AttributeValue<T> {
      * @param value the new value
      * @return true if the main value was updated (which is independent from score updates or alt value changes)
      */
-    boolean setValue(Trust trust, @NullOr T value) {
+    synchronized boolean setValue(Trust trust, @NullOr T value) {
         int score = trust.getScore();
         if (value == null) {
             return false;
@@ -72,6 +95,7 @@ public class Attribute<T> implements AttributeValue<T> {
     }
 
     private boolean updateTruth(T value) {
+        revision++;
         this.value = value;
         this.score = Trust.TRUTH.getScore();
         this.altValue = null;
@@ -81,9 +105,13 @@ public class Attribute<T> implements AttributeValue<T> {
 
     private boolean updateValue(int score, T value) {
         if (Objects.equals(this.value, value)) {
-            this.score = score;
+            if (score != this.score) {
+                revision++;
+                this.score = score;
+            }
             return false;
         }
+        revision++;
         this.altScore = this.score;
         this.altValue = this.value;
         this.score = score;
@@ -92,13 +120,24 @@ public class Attribute<T> implements AttributeValue<T> {
     }
 
     private void updateAltValue(int score, T value) {
-        if (score < this.altScore) {
+        if (score < this.altScore || (score == this.altScore && Objects.equals(this.altValue, value))) {
             return;
         }
+        revision++;
         this.altScore = score;
         this.altValue = value;
     }
 
+    /**
+     * Replaces the current and alternative values by equal (shared) instances.
+     *
+     * @param dictionary provides the shared instance for a value
+     */
+    public synchronized void share(UnaryOperator<@NullOr T> dictionary) {
+        value = dictionary.apply(value);
+        altValue = dictionary.apply(altValue);
+    }
+
     @Override
     public final boolean equals(@NullOr Object o) {
         if (this == o) return true;
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency budget for the tasks of a single listener.
+ * <p>
+ * Up to a limited number of tasks are dispatched for execution at the same
+ * time. Further tasks wait in a bounded lane per priority of the bulkhead
+ * without occupying a worker, so a slow upstream service only delays the
+ * tasks of its own listener. Like in the {@link HarvestQueue}, a waiting task
+ * is due after the aging delay of its lane, and the task that is due first is
+ * dispatched first. Tasks that waited longer than the timeout are dropped, as
+ * are tasks that the dispatcher refuses.
+ */
+class Bulkhead implements MeterBinder {
+    private static final Logger LOG = LoggerFactory.getLogger(Bulkhead.class);
+
+    private final String name;
+    private final int limit;
+    private final int capacity;
+    private final long timeoutNanos;
+    private final Dispatcher dispatcher;
+    private final LongSupplier clock;
+    private final Map<Priority, Queue<Pending>> waiting = new EnumMap<>(Priority.class);
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private volatile int active;
+
+    /**
+     * @param name       listener name
+     * @param limit      maximum number of concurrently dispatched tasks
+     * @param capacity   maximum number of waiting tasks per lane
+     * @param timeout    maximum waiting time of a task
+     * @param dispatcher accepts tasks for execution
+     */
+    Bulkhead(String name, int limit, int capacity, Duration timeout, Dispatcher dispatcher) {
+        this(name, limit, capacity, timeout, dispatcher, System::nanoTime);
+    }
+
+    Bulkhead(String name, int limit, int capacity, Duration timeout, Dispatcher dispatcher, LongSupplier clock) {
+        this.name = name;
+        this.limit = limit;
+        this.capacity = capacity;
+        this.timeoutNanos = timeout.toNanos();
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+        for (var priority : Priority.values()) {
+            waiting.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * @return true if the lane has room for another waiting task
+     */
+    synchronized boolean accepts(Priority priority) {
+        return waiting.get(priority).size() < capacity;
+    }
+
+    /**
+     * Dispatches the task if the budget allows, else queues or rejects it.
+     *
+     * @return false if the task was rejected by the bulkhead or the dispatcher
+     */
+    boolean submit(Priority priority, Runnable task) {
+        return submit(priority, task, () -> {
+        });
+    }
+
+    /**
+     * @param dropped invoked if the task is dropped after it was queued
+     * @return false if the task was rejected by the bulkhead or the dispatcher
+     */
+    boolean submit(Priority priority, Runnable task, Runnable dropped) {
+        synchronized (this) {
+            if (active >= limit) {
+                final var lane = waiting.get(priority);
+                if (lane.size() >= capacity) {
+                    rejected.incrementAndGet();
+                    LOG.warn("Rejected {} {} task; too many pending tasks", priority.name().toLowerCase(), name);
+                    return false;
+                }
+                final var now = clock.getAsLong();
+                lane.add(new Pending(priority, task, dropped, now, now + priority.getAging().toNanos()));
+                return true;
+            }
+            active++;
+        }
+        if (!dispatcher.dispatch(priority, guarded(task))) {
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    private Runnable guarded(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                release();
+            }
+        };
+    }
+
+    /**
+     * Passes the budget of a finished task to the next waiting task, if any.
+     */
+    private void release() {
+        var next = nextWaiting();
+        while (next != null && !dispatcher.dispatch(next.priority, guarded(next.task))) {
+            LOG.warn("Dropped waiting {} task; the dispatcher refused it", name);
+            next.dropped.run();
+            next = nextWaiting();
+        }
+    }
+
+    private @NullOr Pending nextWaiting() {
+        final var dropped = new ArrayList<Pending>();
+        final Pending next;
+        synchronized (this) {
+            final var now = clock.getAsLong();
+            waiting.values().forEach(lane -> dropExpired(lane, now, dropped));
+            next = nextDue();
+            if (next == null) {
+                active--;
+            }
+        }
+        if (!dropped.isEmpty()) {
+            expired.addAndGet(dropped.size());
+            LOG.warn("Dropped {} {} tasks after waiting longer than {} s", dropped.size(), name, timeoutNanos / 1_000_000_000);
+            dropped.forEach(pending -> pending.dropped.run());
+        }
+        return next;
+    }
+
+    /**
+     * Removes the tasks that waited too long from the head of a (FIFO) lane.
+     */
+    private void dropExpired(Queue<Pending> lane, long now, List<Pending> dropped) {
+        var head = lane.peek();
+        while (head != null && now - head.queued > timeoutNanos) {
+            dropped.add(lane.remove());
+            head = lane.peek();
+        }
+    }
+
+    /**
+     * @return the waiting task that is due first, which is the head of one of the lanes
+     */
+    private @NullOr Pending nextDue() {
+        Queue<Pending> next = null;
+        for (var lane : waiting.values()) {
+            final var head = lane.peek();
+            //noinspection ConstantConditions
+            if (head != null && (next == null || head.due - next.peek().due < 0)) {
+                next = lane;
+            }
+        }
+        return (next != null) ? next.poll() : null;
+    }
+
+    int getActive() {
+        return active;
+    }
+
+    synchronized int getWaiting() {
+        return waiting.values().stream().mapToInt(Queue::size).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("harvest.bulkhead.active", this, Bulkhead::getActive)
+                .description("Number of dispatched tasks of a listener")
+                .tag("listener", name)
+                .register(registry);
+        Gauge.builder("harvest.bulkhead.waiting", this, Bulkhead::getWaiting)
+                .description("Number of tasks of a listener waiting for dispatch")
+                .tag("listener", name)
+                .register(registry);
+        FunctionCounter.builder("harvest.bulkhead.rejected", rejected, AtomicLong::get)
+                .description("Tasks of a listener rejected by a full bulkhead")
+                .tag("listener", name)
+                .register(registry);
+        FunctionCounter.builder("harvest.bulkhead.expired", expired, AtomicLong::get)
+                .description("Tasks of a listener dropped after waiting too long")
+                .tag("listener", name)
+                .register(registry);
+    }
+
+    /**
+     * Accepts tasks for execution.
+     */
+    interface Dispatcher {
+        /**
+         * @return false if the task was refused
+         */
+        boolean dispatch(Priority priority, Runnable task);
+    }
+
+    private static class Pending {
+        final Priority priority;
+        final Runnable task;
+        final Runnable dropped;
+        final long queued;
+        final long due;
+
+        Pending(Priority priority, Runnable task, Runnable dropped, long queued, long due) {
+            this.priority = priority;
+            this.task = task;
+            this.dropped = dropped;
+            this.queued = queued;
+            this.due = due;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the availability of the upstream source of a listener.
+ * <p>
+ * After a number of consecutive failures the breaker opens, and the tasks
+ * of the listener are held back instead of calling the failing source.
+ * Once the delay passed, a single task is let through as a probe. The
+ * breaker closes if the probe succeeds, and opens again if it fails.
+ */
+class CircuitBreaker implements MeterBinder {
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    private final int threshold;
+    private final long delayNanos;
+    private final LongSupplier clock;
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * @param name      listener name
+     * @param threshold number of consecutive failures that opens the breaker
+     * @param delay     time until an open breaker lets a probe through
+     */
+    CircuitBreaker(String name, int threshold, Duration delay) {
+        this(name, threshold, delay, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int threshold, Duration delay, LongSupplier clock) {
+        this.name = name;
+        this.threshold = threshold;
+        this.delayNanos = delay.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Requests permission to call the source.
+     *
+     * @return zero if the call is permitted, else the nanoseconds to wait before asking again
+     */
+    synchronized long acquire() {
+        switch (state) {
+            case CLOSED:
+                return 0;
+            case OPEN:
+                final var remaining = openedAt + delayNanos - clock.getAsLong();
+                if (remaining <= 0) {
+                    state = State.HALF_OPEN;
+                    LOG.info("Probing availability of {} source", name);
+                    return 0;
+                }
+                deferred.incrementAndGet();
+                return remaining;
+            default:
+                deferred.incrementAndGet();
+                return delayNanos;
+        }
+    }
+
+    /**
+     * Notifies a permitted call did not fail on the availability of the source.
+     */
+    synchronized void succeeded() {
+        if (state != State.CLOSED) {
+            LOG.info("Source of {} is available again", name);
+        }
+        state = State.CLOSED;
+        failures = 0;
+    }
+
+    /**
+     * Notifies a permitted call failed because the source was not available.
+     */
+    synchronized void failed() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= threshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            opened.incrementAndGet();
+            LOG.warn("Source of {} is unavailable; holding back tasks for {}", name, Duration.ofNanos(delayNanos));
+        }
+    }
+
+    /**
+     * Notifies a failed task is scheduled for another attempt.
+     */
+    void retried() {
+        retried.incrementAndGet();
+    }
+
+    /**
+     * Notifies a failed task is dropped after its last attempt.
+     */
+    void exhausted() {
+        exhausted.incrementAndGet();
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("harvest.breaker.state", this, breaker -> breaker.getState().ordinal())
+                .description("Breaker state of the source of a listener (0=closed, 1=open, 2=half-open)")
+                .tag("listener", name)
+                .register(registry);
+        FunctionCounter.builder("harvest.breaker.opened", opened, AtomicLong::get)
+                .description("Times the breaker opened for the source of a listener")
+                .tag("listener", name)
+                .register(registry);
+        FunctionCounter.builder("harvest.breaker.deferred", deferred, AtomicLong::get)
+                .description("Tasks of a listener held back by an open breaker")
+                .tag("listener", name)
+                .register(registry);
+        FunctionCounter.builder("harvest.retries", retried, AtomicLong::get)
+                .description("Failed tasks of a listener scheduled for another attempt")
+                .tag("listener", name)
+                .register(registry);
+        FunctionCounter.builder("harvest.retries.exhausted", exhausted, AtomicLong::get)
+                .description("Failed tasks of a listener dropped after the last attempt")
+                .tag("listener", name)
+                .register(registry);
+    }
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded queue of harvesting tasks with a FIFO lane per priority.
+ * <p>
+ * Every task is due at its time of queueing plus the aging delay of its lane.
+ * As the oldest task of a lane is always due first, taking the next task only
+ * compares the heads of the lanes. Each lane holds a limited number of tasks,
+ * and the depth, waiting time and rejections per lane are exposed as metrics.
+ */
+public class HarvestQueue implements MeterBinder {
+    private final String workload;
+    private final int capacity;
+    private final LongSupplier clock;
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    /**
+     * @param workload name of the kind of tasks in the queue
+     * @param capacity maximum number of tasks per lane
+     */
+    public HarvestQueue(String workload, int capacity) {
+        this(workload, capacity, System::nanoTime);
+    }
+
+    HarvestQueue(String workload, int capacity, LongSupplier clock) {
+        this.workload = workload;
+        this.capacity = capacity;
+        this.clock = clock;
+        for (var priority : Priority.values()) {
+            lanes.put(priority, new Lane());
+        }
+    }
+
+    /**
+     * @return true if the lane has room for another task
+     */
+    boolean accepts(Priority priority) {
+        return lanes.get(priority).depth.get() < capacity;
+    }
+
+    /**
+     * Adds a task, unless its lane is full.
+     *
+     * @return false if the task was rejected
+     */
+    boolean offer(Priority priority, Runnable task) {
+        final var lane = lanes.get(priority);
+        lock.lock();
+        try {
+            if (lane.depth.get() >= capacity) {
+                lane.rejected.incrementAndGet();
+                return false;
+            }
+            final var now = clock.getAsLong();
+            lane.tasks.add(new Entry(task, now, now + priority.getAging().toNanos()));
+            lane.depth.incrementAndGet();
+            available.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the task that is due first.
+     */
+    Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            var lane = next();
+            while (lane == null) {
+                available.await();
+                lane = next();
+            }
+            return lane.poll(clock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private @NullOr Lane next() {
+        Lane next = null;
+        for (var lane : lanes.values()) {
+            final var head = lane.tasks.peek();
+            //noinspection ConstantConditions
+            if (head != null && (next == null || head.due - next.tasks.peek().due < 0)) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return number of queued tasks in the lane
+     */
+    int depth(Priority priority) {
+        return lanes.get(priority).depth.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lanes.forEach((priority, lane) -> {
+            final var tag = priority.name().toLowerCase();
+            Gauge.builder("harvest.queue.depth", lane.depth, AtomicInteger::get)
+                    .description("Number of queued harvesting tasks")
+                    .tag("lane", tag)
+                    .tag("workload", workload)
+                    .register(registry);
+            FunctionTimer.builder("harvest.queue.wait", lane,
+                    l -> l.taken.get(), l -> l.waitNanos.get(), TimeUnit.NANOSECONDS)
+                    .description("Time harvesting tasks spent in the queue")
+                    .tag("lane", tag)
+                    .tag("workload", workload)
+                    .register(registry);
+            FunctionCounter.builder("harvest.queue.rejected", lane.rejected, AtomicLong::get)
+                    .description("Harvesting tasks rejected by a full queue")
+                    .tag("lane", tag)
+                    .tag("workload", workload)
+                    .register(registry);
+        });
+    }
+
+    private static class Lane {
+        final Queue<Entry> tasks = new ArrayDeque<>();
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicLong taken = new AtomicLong();
+        final AtomicLong waitNanos = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        Runnable poll(long now) {
+            final var entry = tasks.remove();
+            depth.decrementAndGet();
+            taken.incrementAndGet();
+            waitNanos.addAndGet(now - entry.queued);
+            return entry.task;
+        }
+    }
+
+    private static class Entry {
+        final Runnable task;
+        final long queued;
+        final long due;
+
+        Entry(Runnable task, long queued, long due) {
+            this.task = task;
+            this.queued = queued;
+            this.due = due;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Orders the harvesting tasks of a package along the dependency graph of the listeners.
+ * <p>
+ * Tasks of independent listeners are dispatched immediately, so they run in
+ * parallel. A task is held back while a listener upstream of its listener
+ * still has a task in flight for the same package, because that task might
+ * still modify the input of the held back task. This replaces repeated runs
+ * of downstream listeners by a single run on settled inputs.
+ * <p>
+ * Every dispatched task is a step in the harvest of the package, caused by
+ * the step that triggered it. When no more tasks are in flight for a package,
+ * the harvest is complete and the chain of steps with the longest accumulated
+ * execution time is reported as the critical path.
+ */
+class HarvestScheduler<T> implements MeterBinder {
+    private static final Logger LOG = LoggerFactory.getLogger(HarvestScheduler.class);
+
+    private final Function<T, Set<T>> upstreamOf;
+    private final Function<T, String> nameOf;
+    private final LongSupplier clock;
+    private final Map<PackageURL, Run> runs = new HashMap<>();
+    private final AtomicLong deferred = new AtomicLong();
+    private @NullOr Timer durationTimer;
+    private @NullOr Timer criticalPathTimer;
+
+    /**
+     * @param upstreamOf provides the listeners that can modify the input of a listener
+     * @param nameOf     provides the name of a listener
+     */
+    HarvestScheduler(Function<T, Set<T>> upstreamOf, Function<T, String> nameOf) {
+        this(upstreamOf, nameOf, System::nanoTime);
+    }
+
+    HarvestScheduler(Function<T, Set<T>> upstreamOf, Function<T, String> nameOf, LongSupplier clock) {
+        this.upstreamOf = upstreamOf;
+        this.nameOf = nameOf;
+        this.clock = clock;
+    }
+
+    /**
+     * Dispatches a task for a listener, or defers it until all upstream tasks completed.
+     *
+     * @param purl     package of the task
+     * @param listener listener that created the task
+     * @param cause    step that triggered the task, or null if triggered by a client
+     * @param dispatch queues the task for the provided step
+     */
+    void trigger(PackageURL purl, T listener, @NullOr Step cause, Consumer<Step> dispatch) {
+        final Step step;
+        synchronized (this) {
+            final var run = runs.computeIfAbsent(purl, (key) -> new Run(clock.getAsLong()));
+            if (run.isBlocked(listener)) {
+                run.parked.put(listener, new Parked(cause, dispatch));
+                deferred.incrementAndGet();
+                LOG.debug("Deferred {} task for {}", nameOf.apply(listener), purl);
+                return;
+            }
+            step = run.start(listener, cause);
+        }
+        dispatch.accept(step);
+    }
+
+    /**
+     * Notifies a dispatched step starts executing.
+     */
+    void started(Step step) {
+        step.started(clock.getAsLong());
+    }
+
+    /**
+     * Notifies a dispatched step completed, and dispatches the tasks that no longer wait for it.
+     */
+    void completed(PackageURL purl, T listener, Step step) {
+        final var released = new ArrayList<Runnable>();
+        final var waiters = new ArrayList<CompletableFuture<Void>>();
+        synchronized (this) {
+            final var run = runs.get(purl);
+            if (run == null) {
+                return;
+            }
+            step.finished(clock.getAsLong());
+            run.finished(listener, step);
+            final var parked = run.parked.entrySet().iterator();
+            while (parked.hasNext()) {
+                final var entry = parked.next();
+                if (!run.isBlocked(entry.getKey())) {
+                    parked.remove();
+                    final var next = run.start(entry.getKey(), entry.getValue().cause);
+                    final var dispatch = entry.getValue().dispatch;
+                    released.add(() -> dispatch.accept(next));
+                }
+            }
+            if (run.inFlight.isEmpty()) {
+                runs.remove(purl);
+                report(purl, run);
+                waiters.addAll(run.waiters);
+                notifyAll();
+            }
+        }
+        released.forEach(Runnable::run);
+        waiters.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * @return future that completes when no more tasks are in flight for the package
+     */
+    CompletableFuture<Void> awaitCompletion(PackageURL purl) {
+        synchronized (this) {
+            final var run = runs.get(purl);
+            if (run != null) {
+                final var waiter = new CompletableFuture<Void>();
+                run.waiters.removeIf(CompletableFuture::isDone);
+                run.waiters.add(waiter);
+                return waiter;
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    synchronized int getActive() {
+        return runs.size();
+    }
+
+    /**
+     * Blocks until fewer than the indicated number of packages have tasks in flight.
+     */
+    synchronized void awaitActiveBelow(int limit) throws InterruptedException {
+        while (runs.size() >= limit) {
+            wait();
+        }
+    }
+
+    private void report(PackageURL purl, Run run) {
+        final var duration = clock.getAsLong() - run.started;
+        final var critical = run.critical;
+        if (critical == null) {
+            return;
+        }
+        if (durationTimer != null && criticalPathTimer != null) {
+            durationTimer.record(duration, TimeUnit.NANOSECONDS);
+            criticalPathTimer.record(critical.getPath(), TimeUnit.NANOSECONDS);
+        }
+        LOG.info("Harvested {} in {} ms; critical path {} ms: {}", purl,
+                TimeUnit.NANOSECONDS.toMillis(duration), TimeUnit.NANOSECONDS.toMillis(critical.getPath()), critical.chain());
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        durationTimer = Timer.builder("harvest.duration")
+                .description("Time from the first until the last harvesting task of a package")
+                .register(registry);
+        criticalPathTimer = Timer.builder("harvest.critical.path")
+                .description("Accumulated execution time of the longest chain of harvesting tasks of a package")
+                .register(registry);
+        Gauge.builder("harvest.packages.active", this, HarvestScheduler::getActive)
+                .description("Number of packages with harvesting tasks in flight")
+                .register(registry);
+        FunctionCounter.builder("harvest.tasks.deferred", deferred, AtomicLong::get)
+                .description("Harvesting tasks held back until upstream tasks completed")
+                .register(registry);
+    }
+
+    /**
+     * Execution of a single task in the harvest of a package.
+     */
+    static class Step {
+        final String name;
+        final @NullOr Step cause;
+        private boolean executed;
+        private long startedAt;
+        private long path;
+
+        Step(String name, @NullOr Step cause) {
+            this.name = name;
+            this.cause = cause;
+        }
+
+        synchronized void started(long now) {
+            executed = true;
+            startedAt = now;
+        }
+
+        synchronized void finished(long now) {
+            final var duration = executed ? now - startedAt : 0;
+            path = ((cause != null) ? cause.getPath() : 0) + duration;
+        }
+
+        /**
+         * @return accumulated execution time of this step and its causes
+         */
+        synchronized long getPath() {
+            return path;
+        }
+
+        /**
+         * @return names of the steps leading to this step
+         */
+        List<String> chain() {
+            final var names = new LinkedList<String>();
+            for (@NullOr Step step = this; step != null; step = step.cause) {
+                names.addFirst(step.name);
+            }
+            return names;
+        }
+    }
+
+    private class Run {
+        final long started;
+        final Set<T> inFlight = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Map<T, Parked> parked = new LinkedHashMap<>();
+        final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        @NullOr Step critical;
+
+        Run(long started) {
+            this.started = started;
+        }
+
+        boolean isBlocked(T listener) {
+            final var upstream = upstreamOf.apply(listener);
+            return inFlight.stream().anyMatch(other -> other != listener && upstream.contains(other));
+        }
+
+        Step start(T listener, @NullOr Step cause) {
+            inFlight.add(listener);
+            return new Step(nameOf.apply(listener), cause);
+        }
+
+        void finished(T listener, Step step) {
+            inFlight.remove(listener);
+            if (critical == null || step.getPath() > critical.getPath()) {
+                critical = step;
+            }
+        }
+    }
+
+    private static class Parked {
+        final @NullOr Step cause;
+        final Consumer<Step> dispatch;
+
+        Parked(@NullOr Step cause, Consumer<Step> dispatch) {
+            this.cause = cause;
+            this.dispatch = dispatch;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Package changes a listener can react to.
+ * <p>
+ * An interest is a combination of the creation of a package and/or the
+ * modification of specific fields, optionally limited to selected package
+ * URL types. It also indicates the fields the listener can modify in turn,
+ * which makes the listener an upstream dependency of the listeners that
+ * react to these fields.
+ */
+public final class Interest {
+    private static final Set<Field> ALL_FIELDS = EnumSet.allOf(Field.class);
+    private static final Interest ANY = new Interest(type -> true, true, ALL_FIELDS, ALL_FIELDS);
+
+    private final Predicate<String> types;
+    private final boolean created;
+    private final Set<Field> modified;
+    private final Set<Field> produced;
+
+    private Interest(Predicate<String> types, boolean created, Set<Field> modified, Set<Field> produced) {
+        this.types = types;
+        this.created = created;
+        this.modified = modified;
+        this.produced = produced;
+    }
+
+    /**
+     * @return interest in the creation and any modification of any package
+     */
+    public static Interest any() {
+        return ANY;
+    }
+
+    /**
+     * @return interest in the creation of packages
+     */
+    public static Interest created() {
+        return new Interest(ANY.types, true, Set.of(), ALL_FIELDS);
+    }
+
+    /**
+     * @return interest in the modification of any of the indicated fields
+     */
+    public static Interest modified(Field field, Field... others) {
+        return new Interest(ANY.types, false, EnumSet.of(field, others), ALL_FIELDS);
+    }
+
+    /**
+     * @param types selects supported package URL types
+     * @return this interest limited to packages of the supported types
+     */
+    public Interest forTypes(Predicate<String> types) {
+        return new Interest(types, created, modified, produced);
+    }
+
+    /**
+     * @param fields fields the listener can modify (default all fields)
+     * @return this interest for a listener that only modifies the indicated fields
+     */
+    public Interest produces(Set<Field> fields) {
+        return new Interest(types, created, modified, fields.isEmpty() ? Set.of() : EnumSet.copyOf(fields));
+    }
+
+    boolean isType(String type) {
+        return types.test(type);
+    }
+
+    boolean isCreated() {
+        return created;
+    }
+
+    boolean isModified(Field field) {
+        return modified.contains(field);
+    }
+
+    Set<Field> getProduced() {
+        return produced;
+    }
+
+    /**
+     * @return true if the listener can modify fields the downstream listener reacts to
+     */
+    boolean feeds(Interest downstream) {
+        return produced.stream().anyMatch(downstream.modified::contains);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Dispatch table that selects the listeners that can react to a package change.
+ * <p>
+ * Per package URL type the table holds the listeners for package creation,
+ * and per field the listeners for its modification, as a set of registration
+ * indices. A change therefore only visits the listeners that are interested
+ * in it, in order of registration. The routes for a type are derived on first
+ * use, and discarded when a listener is added.
+ * <p>
+ * The table also derives the dependency graph of the listeners: a listener
+ * is upstream of another listener if it (transitively) modifies fields the
+ * other listener reacts to.
+ */
+class ListenerTable<T> {
+    private final Function<T, Interest> interestOf;
+    private volatile Snapshot<T> snapshot = new Snapshot<>(List.of());
+
+    /**
+     * @param interestOf provides the interest of a listener
+     */
+    ListenerTable(Function<T, Interest> interestOf) {
+        this.interestOf = interestOf;
+    }
+
+    /**
+     * Registers a listener, unless it was already registered.
+     *
+     * @return false if the listener was already registered
+     */
+    synchronized boolean add(T listener) {
+        final var registrations = snapshot.registrations;
+        if (registrations.stream().anyMatch(reg -> reg.listener == listener)) {
+            return false;
+        }
+        final var extended = new ArrayList<>(registrations);
+        extended.add(new Registration<>(listener, interestOf.apply(listener)));
+        snapshot = new Snapshot<>(extended);
+        return true;
+    }
+
+    /**
+     * @param type     package URL type of the changed package
+     * @param modified modified fields, or empty for a new package
+     * @return listeners interested in the change, in order of registration
+     */
+    List<T> select(String type, Set<Field> modified) {
+        final var current = snapshot;
+        final var route = current.routesFor(type);
+        if (modified.isEmpty()) {
+            return listenersOf(current, route.created);
+        }
+        final var selected = new BitSet();
+        modified.forEach(field -> {
+            final var listeners = route.modified.get(field);
+            if (listeners != null) {
+                selected.or(listeners);
+            }
+        });
+        return listenersOf(current, selected);
+    }
+
+    /**
+     * @return listeners that can (indirectly) modify the fields the listener reacts to
+     */
+    Set<T> upstreamOf(T listener) {
+        return snapshot.upstream.getOrDefault(listener, Set.of());
+    }
+
+    private List<T> listenersOf(Snapshot<T> current, BitSet selected) {
+        final var result = new ArrayList<T>(selected.cardinality());
+        selected.stream().forEach(i -> result.add(current.registrations.get(i).listener));
+        return result;
+    }
+
+    /**
+     * Immutable set of registrations with the routes derived from them.
+     */
+    private static class Snapshot<T> {
+        final List<Registration<T>> registrations;
+        final Map<String, Routes> routes = new ConcurrentHashMap<>();
+        final Map<T, Set<T>> upstream = new IdentityHashMap<>();
+
+        Snapshot(List<Registration<T>> registrations) {
+            this.registrations = List.copyOf(registrations);
+            registrations.forEach(reg -> upstream.put(reg.listener, upstreamOf(reg)));
+        }
+
+        private Set<T> upstreamOf(Registration<T> downstream) {
+            final Set<T> result = Collections.newSetFromMap(new IdentityHashMap<>());
+            final var todo = new ArrayDeque<Registration<T>>(List.of(downstream));
+            while (!todo.isEmpty()) {
+                final var current = todo.poll();
+                registrations.stream()
+                        .filter(reg -> reg.interest.feeds(current.interest))
+                        .filter(reg -> reg.listener != downstream.listener && result.add(reg.listener))
+                        .forEach(todo::add);
+            }
+            return result;
+        }
+
+        Routes routesFor(String type) {
+            return routes.computeIfAbsent(type, (key) -> new Routes(registrations, type));
+        }
+    }
+
+    private static class Registration<T> {
+        final T listener;
+        final Interest interest;
+
+        Registration(T listener, Interest interest) {
+            this.listener = listener;
+            this.interest = interest;
+        }
+    }
+
+    private static class Routes {
+        final BitSet created = new BitSet();
+        final Map<Field, BitSet> modified = new EnumMap<>(Field.class);
+
+        Routes(List<? extends Registration<?>> registrations, String type) {
+            for (int i = 0; i < registrations.size(); i++) {
+                final var interest = registrations.get(i).interest;
+                if (!interest.isType(type)) {
+                    continue;
+                }
+                if (interest.isCreated()) {
+                    created.set(i);
+                }
+                for (var field : Field.values()) {
+                    if (interest.isModified(field)) {
+                        modified.computeIfAbsent(field, (key) -> new BitSet()).set(i);
+                    }
+                }
+            }
+        }
+    }
+}
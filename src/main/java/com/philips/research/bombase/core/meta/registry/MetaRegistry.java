@@ -6,91 +6,455 @@
 package com.philips.research.bombase.core.meta.registry;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.QueueFullException;
 import com.philips.research.bombase.core.meta.MetaStore;
+import com.philips.research.bombase.core.meta.TaskJournal;
+import com.philips.research.bombase.core.meta.registry.HarvestScheduler.Step;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import pl.tlinkowski.annotation.basic.NullOr;
 
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
-public class MetaRegistry {
+public class MetaRegistry implements MeterBinder {
     private static final Logger LOG = LoggerFactory.getLogger(MetaRegistry.class);
 
     private final MetaStore store;
     private final QueuedTaskRunner runner;
-    private final Set<PackageListener> listeners = new HashSet<>();
+    private final TaskJournal journal;
+    private final ListenerTable<PackageListener> listeners = new ListenerTable<>(PackageListener::getInterest);
+    private final Map<PackageListener, String> names = new ConcurrentHashMap<>();
+    private final HarvestScheduler<PackageListener> scheduler = new HarvestScheduler<>(listeners::upstreamOf, this::nameOf);
+    private final PackageLocks locks = new PackageLocks();
+    private final Map<PackageListener, Duration> ttls = new ConcurrentHashMap<>();
+    private final ConfigProperties properties;
+    private final RefreshScheduler<Harvest> refresher;
+    private final UpdateFeed feed;
+    private final Map<PackageURL, CompletableFuture<Package>> creations = new ConcurrentHashMap<>();
+    private final AtomicLong joinedCreations = new AtomicLong();
 
     public MetaRegistry(MetaStore store, QueuedTaskRunner runner) {
+        this(store, runner, TaskJournal.NONE, new ConfigProperties());
+    }
+
+    @Autowired
+    public MetaRegistry(MetaStore store, QueuedTaskRunner runner, TaskJournal journal, ConfigProperties properties) {
         this.store = store;
         this.runner = runner;
+        this.journal = journal;
+        this.properties = properties;
+        this.refresher = new RefreshScheduler<>(properties.getRefreshRate(), this::refresh);
+        this.feed = new UpdateFeed(properties.getUpdateBufferSize());
     }
 
     private static String nameFor(Object object) {
         return object.getClass().getSimpleName().replace("Listener", "");
     }
 
+    /**
+     * @return unique name of a registered listener
+     */
+    String nameOf(PackageListener listener) {
+        return names.getOrDefault(listener, nameFor(listener));
+    }
+
     /**
      * Registers an observer for metadata value changes.
+     * Listeners of the same class are numbered to keep their tasks apart.
      *
      * @param listener observer
      */
-    public void addListener(PackageListener listener) {
-        LOG.info("Registered {} listener", nameFor(listener));
+    public synchronized void addListener(PackageListener listener) {
+        if (names.containsKey(listener)) {
+            return;
+        }
+        final var base = nameFor(listener);
+        var name = base;
+        for (int i = 2; names.containsValue(name); i++) {
+            name = base + '#' + i;
+        }
+        names.put(listener, name);
         listeners.add(listener);
+        final var interest = listener.getInterest();
+        if (interest.isCreated()) {
+            ttls.put(listener, properties.getRefreshTtl(name, interest.getProduced()));
+        }
+        LOG.info("Registered {} listener", name);
     }
 
     public Optional<Map<Field, AttributeValue<?>>> getAttributeValues(PackageURL purl) {
         return store.findPackage(purl)
-                .map(pkg -> pkg.getAttributes()
-                        .collect(Collectors.toMap(Attribute::getField, a -> a)));
+                .map(pkg -> {
+                    accessed(pkg);
+                    return pkg.getAttributes()
+                            .collect(Collectors.toMap(Attribute::getField, a -> a));
+                });
+    }
+
+    /**
+     * Provides a future that completes when the harvest of a package settled.
+     * A package that is not being harvested settles immediately.
+     *
+     * @param purl package to observe
+     * @return future that completes when no more harvesting tasks are in flight for the package
+     */
+    public CompletableFuture<Void> awaitHarvest(PackageURL purl) {
+        return scheduler.awaitCompletion(purl);
+    }
+
+    /**
+     * Subscribes to the modifications of packages.
+     * Modifications are delivered asynchronously, and a subscriber that falls
+     * too far behind is dropped.
+     *
+     * @param filter   selects the packages of interest
+     * @param consumer receives each modified package with its modified fields
+     * @param closed   invoked once when the subscription ends
+     * @return subscription to close when no longer interested
+     */
+    public UpdateFeed.Subscription subscribe(Predicate<PackageURL> filter, BiConsumer<PackageURL, Set<Field>> consumer,
+                                             Runnable closed) {
+        return feed.subscribe(filter, consumer, closed);
+    }
+
+    /**
+     * Starts re-harvesting packages in the background lane when their metadata becomes stale.
+     * All stored packages are scheduled by the time they were last updated, so packages that
+     * are not accessed after a restart are refreshed as well.
+     */
+    public void startRefresh() {
+        if (properties.getRefreshRate() > 0) {
+            final var start = System.currentTimeMillis();
+            final var count = new AtomicLong();
+            store.allPackages().forEach(pkg -> {
+                final var purl = pkg.getPurl();
+                final var harvested = pkg.getLastUpdated().toEpochMilli();
+                listeners.select(notNull(purl.getType()), Set.of()).forEach(l -> {
+                    final var ttl = ttls.get(l);
+                    if (ttl != null && refresher.stored(new Harvest(purl, nameOf(l)), harvested, ttl)) {
+                        count.incrementAndGet();
+                    }
+                });
+            });
+            LOG.info("Scheduled {} stored harvests for a refresh in {} ms", count.get(), System.currentTimeMillis() - start);
+            refresher.start();
+        }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        refresher.stop();
+    }
+
+    /**
+     * Edits a package on behalf of a client.
+     *
+     * @param purl     package to edit
+     * @param consumer edit operation
+     * @throws com.philips.research.bombase.core.QueueFullException if no more interactive tasks can be queued
+     */
     public void edit(PackageURL purl, Consumer<PackageAttributeEditor> consumer) {
-        final var pkg = getOrCreatePackage(purl);
+        edit(purl, Priority.INTERACTIVE, consumer);
+    }
+
+    /**
+     * Edits a package, while concurrent edits of the same package are serialized.
+     *
+     * @param purl     package to edit
+     * @param priority lane for the resulting harvesting tasks
+     * @param consumer edit operation
+     * @throws com.philips.research.bombase.core.QueueFullException if the lane is full
+     */
+    public void edit(PackageURL purl, Priority priority, Consumer<PackageAttributeEditor> consumer) {
+        runner.admit(priority);
+        final var pkg = getOrCreatePackage(purl, priority);
         final var editor = new PackageAttributeEditor(pkg);
-        consumer.accept(editor);
-        cascadeListeners(editor);
+        locks.run(purl, () -> consumer.accept(editor));
+        cascade(editor, priority, null);
     }
 
-    private Package getOrCreatePackage(PackageURL purl) {
-        return store.findPackage(purl).orElseGet(() -> createPackage(purl));
+    private Package getOrCreatePackage(PackageURL purl, Priority priority) {
+        return store.findPackage(purl).orElseGet(() -> createPackage(purl, priority));
     }
 
-    private Package createPackage(PackageURL purl) {
-        final var pkg = store.createPackage(purl);
-        LOG.info("Created new package {}", purl);
-        notifyListeners(purl, Set.of(), Map.of());
-        return pkg;
+    /**
+     * Creates a package and notifies the listeners exactly once, while concurrent
+     * callers for the same package join the creation in flight.
+     */
+    private Package createPackage(PackageURL purl, Priority priority) {
+        final var creation = new CompletableFuture<Package>();
+        final var inFlight = creations.putIfAbsent(purl, creation);
+        if (inFlight != null) {
+            joinedCreations.incrementAndGet();
+            return join(inFlight);
+        }
+        try {
+            // Another caller might have completed the creation since the lookup
+            final var pkg = store.findPackage(purl).orElseGet(() -> {
+                final var created = store.createPackage(purl);
+                LOG.info("Created new package {}", purl);
+                notifyListeners(purl, Set.of(), Map.of(), priority, null);
+                return created;
+            });
+            creation.complete(pkg);
+            return pkg;
+        } catch (RuntimeException e) {
+            creation.completeExceptionally(e);
+            throw e;
+        } finally {
+            creations.remove(purl, creation);
+        }
     }
 
-    private void cascadeListeners(PackageAttributeEditor editor) {
-        if (editor.isModified()) {
-            final var modifiedFields = editor.getModifiedFields();
-            LOG.info("Updated {}: {}", editor.getPurl(), modifiedFields);
-            notifyListeners(editor.getPurl(), modifiedFields, editor.getValues());
-        } else {
-            LOG.info("No update of {}", editor.getPurl());
+    private Package join(CompletableFuture<Package> creation) {
+        try {
+            return creation.join();
+        } catch (CompletionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
         }
     }
 
-    private void notifyListeners(PackageURL purl, Set<Field> modifiedFields, Map<Field, Object> values) {
-        listeners.forEach(l -> l.onUpdated(purl, modifiedFields, values)
+    /**
+     * Notifies the modifications of an editor. Only the snapshot of the
+     * modifications is taken under the lock of the package, so listeners
+     * are notified without blocking other edits.
+     */
+    private void cascade(PackageAttributeEditor editor, Priority priority, @NullOr Step cause) {
+        final var purl = editor.getPurl();
+        final Set<Field> modifiedFields;
+        final Map<Field, Object> values;
+        final var lock = locks.lockOf(purl);
+        lock.lock();
+        try {
+            if (!editor.isModified()) {
+                LOG.info("No update of {}", purl);
+                return;
+            }
+            modifiedFields = Set.copyOf(editor.getModifiedFields());
+            values = editor.getValues();
+        } finally {
+            lock.unlock();
+        }
+        LOG.info("Updated {}: {}", purl, modifiedFields);
+        feed.publish(purl, modifiedFields);
+        notifyListeners(purl, modifiedFields, values, priority, cause);
+    }
+
+    private void notifyListeners(PackageURL purl, Set<Field> modifiedFields, Map<Field, Object> values,
+                                 Priority priority, @NullOr Step cause) {
+        listeners.select(notNull(purl.getType()), modifiedFields).forEach(l -> l.onUpdated(purl, modifiedFields, values)
                 .ifPresent(task -> {
-                    LOG.info("Scheduled {} task for {}", nameFor(l), purl);
-                    runner.execute(purl, task, this::cascadeListeners);
+                    journal.requested(purl, nameOf(l), priority, modifiedFields);
+                    schedule(purl, l, task, priority, cause);
                 }));
     }
 
+    private void schedule(PackageURL purl, PackageListener listener, Consumer<PackageAttributeEditor> task,
+                          Priority priority, @NullOr Step cause) {
+        final var name = nameOf(listener);
+        LOG.info("Scheduled {} task for {}", name, purl);
+        scheduler.trigger(purl, listener, cause, step -> {
+            final var covered = new AtomicLong(journal.position());
+            runner.execute(purl, name, priority,
+                    editor -> {
+                        covered.set(journal.position());
+                        scheduler.started(step);
+                        editor.guardUpdates(locks.lockOf(purl));
+                        task.accept(editor);
+                    },
+                    editor -> cascade(editor, cascadePriority(priority), step),
+                    () -> {
+                        journal.completed(purl, name, covered.get());
+                        scheduler.completed(purl, listener, step);
+                        harvested(purl, listener);
+                    });
+        });
+    }
+
+    /**
+     * Reschedules the harvesting tasks that did not complete before the previous shutdown.
+     * Tasks are resumed by a background thread in order of priority, while at most the
+     * indicated number of packages is harvested at the same time.
+     *
+     * @param limit maximum number of packages with tasks in flight
+     */
+    public void resumeUnfinishedTasks(int limit) {
+        final var tasks = journal.unfinished();
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final var thread = new Thread(() -> resume(tasks, limit), "journal-replay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void resume(List<TaskJournal.Task> tasks, int limit) {
+        LOG.info("Resuming {} unfinished harvesting tasks", tasks.size());
+        try {
+            for (var task : tasks) {
+                scheduler.awaitActiveBelow(limit);
+                resume(task);
+            }
+            LOG.info("Resumed all unfinished harvesting tasks");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.error("Resuming unfinished harvesting tasks failed", e);
+        }
+    }
+
+    private void resume(TaskJournal.Task task) {
+        final var purl = task.getPurl();
+        final var listener = listenerNamed(task.getListener());
+        final var pkg = store.findPackage(purl);
+        if (listener.isPresent() && pkg.isPresent()) {
+            final var values = new PackageAttributeEditor(pkg.get()).getValues();
+            final var resumed = listener.get().onUpdated(purl, task.getFields(), values);
+            if (resumed.isPresent()) {
+                schedule(purl, listener.get(), resumed.get(), task.getPriority(), null);
+                return;
+            }
+        }
+        journal.completed(purl, task.getListener(), task.getSequence());
+    }
+
+    private void harvested(PackageURL purl, PackageListener listener) {
+        final var ttl = ttls.get(listener);
+        if (ttl != null && properties.getRefreshRate() > 0) {
+            refresher.harvested(new Harvest(purl, nameOf(listener)), ttl);
+        }
+    }
+
+    private void accessed(Package pkg) {
+        if (properties.getRefreshRate() <= 0) {
+            return;
+        }
+        final var purl = pkg.getPurl();
+        listeners.select(notNull(purl.getType()), Set.of()).forEach(l -> {
+            final var ttl = ttls.get(l);
+            final var harvest = new Harvest(purl, nameOf(l));
+            if (ttl != null && !refresher.accessed(harvest)) {
+                refresher.accessed(harvest, pkg.getLastUpdated().toEpochMilli(), ttl);
+            }
+        });
+    }
+
+    /**
+     * Schedules a stale harvest in the background lane.
+     *
+     * @return false if the background lane is full
+     */
+    private boolean refresh(Harvest harvest) {
+        final var listener = listenerNamed(harvest.listener);
+        final var pkg = store.findPackage(harvest.purl);
+        if (listener.isEmpty() || pkg.isEmpty()) {
+            return true;
+        }
+        try {
+            runner.admit(Priority.BACKGROUND);
+        } catch (QueueFullException e) {
+            return false;
+        }
+        final var values = new PackageAttributeEditor(pkg.get()).getValues();
+        listener.get().onUpdated(harvest.purl, Set.of(), values).ifPresent(task -> {
+            journal.requested(harvest.purl, harvest.listener, Priority.BACKGROUND, Set.of());
+            schedule(harvest.purl, listener.get(), task, Priority.BACKGROUND, null);
+        });
+        return true;
+    }
+
+    private Optional<PackageListener> listenerNamed(String name) {
+        return names.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(name))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+    private static String notNull(@NullOr String string) {
+        return (string != null) ? string : "";
+    }
+
+    /**
+     * @return lane for tasks triggered by the outcome of a task in the indicated lane
+     */
+    private Priority cascadePriority(Priority priority) {
+        return (priority == Priority.INTERACTIVE) ? Priority.CASCADE : priority;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        scheduler.bindTo(registry);
+        refresher.bindTo(registry);
+        feed.bindTo(registry);
+        FunctionCounter.builder("packages.created.joined", joinedCreations, AtomicLong::get)
+                .description("Requests for an unknown package that joined its creation in flight")
+                .register(registry);
+    }
+
+    /**
+     * Harvest of a package by a listener.
+     */
+    private static class Harvest {
+        final PackageURL purl;
+        final String listener;
+
+        Harvest(PackageURL purl, String listener) {
+            this.purl = purl;
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean equals(@NullOr Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Harvest harvest = (Harvest) o;
+            return purl.equals(harvest.purl) && listener.equals(harvest.listener);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(purl, listener);
+        }
+    }
+
     /**
      * Callbacks to optionally create an asynchronous task.
      */
     public interface PackageListener {
+        /**
+         * Declares the package changes this listener can react to. Other
+         * changes are not notified to the listener.
+         * The interest is read once when the listener is registered.
+         */
+        default Interest getInterest() {
+            return Interest.any();
+        }
+
         /**
          * Notifies given fields were updated.
          *
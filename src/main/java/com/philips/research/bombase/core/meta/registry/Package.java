@@ -6,20 +6,37 @@
 package com.philips.research.bombase.core.meta.registry;
 
 import com.github.packageurl.PackageURL;
+import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.Instant;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+/**
+ * Package with its metadata attributes.
+ * <p>
+ * Attributes are held in a dense array indexed on field ordinal, so lookups
+ * are a single (lock-free) array access.
+ */
 public class Package {
+    private static final int FIELD_COUNT = Field.values().length;
+    private static final VarHandle ATTRIBUTES = MethodHandles.arrayElementVarHandle(Attribute[].class);
+
     private final PackageURL purl;
-    private final Set<Attribute<?>> attributes = new HashSet<>();
-    private Instant lastUpdated = Instant.now();
+    private final @NullOr Attribute<?>[] attributes = new Attribute<?>[FIELD_COUNT];
+    private volatile Instant lastUpdated;
 
     public Package(PackageURL purl) {
+        this(purl, Instant.now());
+    }
+
+    public Package(PackageURL purl, Instant lastUpdated) {
         this.purl = purl;
+        this.lastUpdated = lastUpdated;
     }
 
     public PackageURL getPurl() {
@@ -27,30 +44,36 @@ public class Package {
     }
 
     public void setUpdated() {
-        this.lastUpdated = Instant.now();
+        setUpdated(Instant.now());
+    }
+
+    protected void setUpdated(Instant timestamp) {
+        this.lastUpdated = timestamp;
     }
 
     public Instant getLastUpdated() {
         return lastUpdated;
     }
 
-    public synchronized <T> Attribute<T> add(Attribute<T> attribute) {
-        if (attributes.contains(attribute)) {
+    public <T> Attribute<T> add(Attribute<T> attribute) {
+        if (!ATTRIBUTES.compareAndSet(attributes, attribute.getField().ordinal(), null, attribute)) {
             throw new IllegalArgumentException("The " + attribute.getField().name() + " attribute already exists in package " + purl);
         }
-        attributes.add(attribute);
         return attribute;
     }
 
-    public synchronized <T> Optional<Attribute<T>> getAttributeFor(Field field) {
+    public <T> Optional<Attribute<T>> getAttributeFor(Field field) {
         //noinspection unchecked
-        return attributes.stream()
-                .map(attr -> (Attribute<T>) attr)
-                .filter(attr -> attr.getField() == field)
-                .findFirst();
+        return Optional.ofNullable((Attribute<T>) attributeAt(field.ordinal()));
     }
 
     public Stream<Attribute<?>> getAttributes() {
-        return attributes.stream();
+        return IntStream.range(0, FIELD_COUNT)
+                .<Attribute<?>>mapToObj(this::attributeAt)
+                .filter(Objects::nonNull);
+    }
+
+    private @NullOr Attribute<?> attributeAt(int ordinal) {
+        return (Attribute<?>) ATTRIBUTES.getAcquire(attributes, ordinal);
     }
 }
@@ -9,6 +9,7 @@ import com.github.packageurl.PackageURL;
 import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 /**
@@ -17,6 +18,8 @@ import java.util.stream.Collectors;
 public class PackageAttributeEditor {
     private final Package pkg;
     private final Set<Field> modifiedFields = new HashSet<>();
+    private boolean changed;
+    private @NullOr Lock lock;
 
     public PackageAttributeEditor(Package pkg) {
         this.pkg = pkg;
@@ -70,13 +73,30 @@ public class PackageAttributeEditor {
             return this;
         }
 
-        final var modified = getOrCreateAttr(field).setValue(trust, value);
-        if (modified) {
-            modifiedFields.add(field);
+        if (lock == null) {
+            apply(field, trust, value);
+            return this;
+        }
+        lock.lock();
+        try {
+            apply(field, trust, value);
+        } finally {
+            lock.unlock();
         }
         return this;
     }
 
+    private void apply(Field field, Trust trust, Object value) {
+        final var attribute = getOrCreateAttr(field);
+        final var revision = attribute.getRevision();
+        if (attribute.setValue(trust, value)) {
+            modifiedFields.add(field);
+        }
+        if (attribute.getRevision() != revision) {
+            changed = true;
+        }
+    }
+
     private <T> Attribute<T> getOrCreateAttr(Field field) {
         return pkg.<T>getAttributeFor(field).orElseGet(() -> createAttribute(field));
     }
@@ -86,6 +106,14 @@ public class PackageAttributeEditor {
         return pkg.add(new Attribute<>(field));
     }
 
+    /**
+     * Holds the lock during every individual update, so a task can prepare
+     * its updates (e.g. by fetching metadata) without blocking other edits.
+     */
+    void guardUpdates(Lock lock) {
+        this.lock = lock;
+    }
+
     /**
      * @return all fields of which the value has been modified
      */
@@ -94,13 +122,16 @@ public class PackageAttributeEditor {
     }
 
     /**
-     * @return true if this editor modified the package
+     * Marks the package as updated if any attribute changed, including
+     * changes of only a score or an alternative value.
+     *
+     * @return true if this editor modified the value of any field
      */
     boolean isModified() {
-        final var modified = !modifiedFields.isEmpty();
-        if (modified) {
+        if (changed) {
+            changed = false;
             pkg.setUpdated();
         }
-        return modified;
+        return !modifiedFields.isEmpty();
     }
 }
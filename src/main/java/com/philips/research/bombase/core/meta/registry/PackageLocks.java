@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks to serialize the edits of a package.
+ * <p>
+ * Edits of the same package always map to the same lock, while edits of
+ * different packages (mostly) map to different locks and proceed in
+ * parallel. Striping avoids the memory cost of a lock per package.
+ */
+class PackageLocks {
+    private static final int STRIPES = 1024;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    PackageLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the lock of the package.
+     */
+    void run(PackageURL purl, Runnable action) {
+        final var lock = lockOf(purl);
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return (re-entrant) lock of the package
+     */
+    Lock lockOf(PackageURL purl) {
+        final var hash = purl.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import java.time.Duration;
+
+/**
+ * Scheduling lanes for harvesting tasks.
+ * <p>
+ * A queued task becomes due after the aging delay of its lane, and the task
+ * that is due first is executed first. This favors interactive tasks, while
+ * tasks in the other lanes cannot starve.
+ */
+public enum Priority {
+    INTERACTIVE(Duration.ZERO), // Requested by a client
+    CASCADE(Duration.ofSeconds(10)), // Triggered by the outcome of another task
+    BACKGROUND(Duration.ofMinutes(2)); // Maintenance of existing metadata
+
+    private final Duration aging;
+
+    Priority(Duration aging) {
+        this.aging = aging;
+    }
+
+    Duration getAging() {
+        return aging;
+    }
+}
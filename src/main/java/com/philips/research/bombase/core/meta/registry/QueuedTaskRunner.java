@@ -6,37 +6,329 @@
 package com.philips.research.bombase.core.meta.registry;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.QueueFullException;
 import com.philips.research.bombase.core.meta.MetaStore;
+import com.philips.research.bombase.core.meta.SourceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+/**
+ * Executes harvesting tasks from prioritized queues by a fixed number of workers.
+ * <p>
+ * Tasks of CPU-heavy listeners are executed by a small number of workers,
+ * while the (many) workers for I/O-bound tasks mostly wait for responses.
+ * The tasks of every listener pass through a separate bulkhead, so a slow
+ * upstream service cannot occupy all workers.
+ * Repeated triggers for the same listener and package are coalesced into a
+ * single pending task, or a single follow-up run of a running task.
+ * Tasks that fail on an unavailable upstream source are retried with a
+ * jittered exponential backoff by a timer, without occupying a worker while
+ * they wait. A circuit breaker per listener holds back its tasks while the
+ * source keeps failing.
+ * Tasks waiting in a bulkhead are kept in the same priority lanes as the
+ * queues. If a lane of a queue or bulkhead is full, new interactive requests
+ * are rejected before any work is done. Tasks that cannot be queued anyway
+ * are dropped like the tasks rejected by a full bulkhead, so a task never
+ * runs on the thread of its producer.
+ */
 @Service
-public class QueuedTaskRunner {
+public class QueuedTaskRunner implements MeterBinder {
     private static final Logger LOG = LoggerFactory.getLogger(QueuedTaskRunner.class);
 
     private final MetaStore store;
+    private final ConfigProperties properties;
+    private final Set<String> cpuListeners;
+    private final Map<Workload, HarvestQueue> queues = new EnumMap<>(Workload.class);
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    private final TaskCoalescer coalescer = new TaskCoalescer();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "harvest-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private @NullOr MeterRegistry meterRegistry;
 
+    /**
+     * Creates a runner that executes all tasks immediately on the calling thread.
+     */
     public QueuedTaskRunner(MetaStore store) {
         this.store = store;
+        this.properties = new ConfigProperties();
+        this.cpuListeners = Set.of();
+    }
+
+    @Autowired
+    public QueuedTaskRunner(MetaStore store, ConfigProperties properties,
+                            @Qualifier(RunnerConfig.CPU_EXECUTOR) Executor cpuExecutor,
+                            @Qualifier(RunnerConfig.IO_EXECUTOR) Executor ioExecutor) {
+        this.store = store;
+        this.properties = properties;
+        this.cpuListeners = Set.copyOf(properties.getCpuListeners());
+        start(Workload.CPU, properties.getCpuThreads(), cpuExecutor, properties.getHarvestQueueCapacity());
+        start(Workload.IO, properties.getIoThreads(), ioExecutor, properties.getHarvestQueueCapacity());
+    }
+
+    private void start(Workload workload, int count, Executor executor, int capacity) {
+        final var queue = new HarvestQueue(workload.name().toLowerCase(), capacity);
+        queues.put(workload, queue);
+        for (int i = 0; i < count; i++) {
+            executor.execute(() -> work(queue));
+        }
+        LOG.info("Started {} workers for {}-bound tasks", count, workload);
+    }
+
+    /**
+     * Verifies the queues and the backlogs of the bulkheads have room for new tasks of the indicated priority.
+     *
+     * @throws QueueFullException if the lane is full
+     */
+    void admit(Priority priority) {
+        if (!queues.values().stream().allMatch(queue -> queue.accepts(priority))
+                || !bulkheads.values().stream().allMatch(bulkhead -> bulkhead.accepts(priority))) {
+            throw new QueueFullException("Too many pending " + priority.name().toLowerCase() + " tasks; retry later");
+        }
+    }
+
+    /**
+     * Queues a task for execution, unless the same task is already pending.
+     *
+     * @param purl     package to edit
+     * @param source   name of the listener that created the task
+     * @param priority lane of the task
+     * @param task     execution unit
+     * @param callback invoked with the editor after the task completed
+     */
+    public void execute(PackageURL purl, String source, Priority priority,
+                        Consumer<PackageAttributeEditor> task, Consumer<PackageAttributeEditor> callback) {
+        execute(purl, source, priority, task, callback, () -> {
+        });
     }
 
     /**
-     * Queues tasks to run up to a configured maximum in parallel.
+     * Queues a task for execution, unless the same task is already pending.
      *
-     * @param task execution unit
+     * @param completed invoked once when the queued task (including any follow-up runs)
+     *                  completed, failed or was dropped, but not for a coalesced task
      */
-    @Async(RunnerConfig.NAME)
-    public
-    //@Transactional(propagation = Propagation.REQUIRES_NEW)
-    void execute(PackageURL purl, Consumer<PackageAttributeEditor> task, Consumer<PackageAttributeEditor> callback) {
+    public void execute(PackageURL purl, String source, Priority priority,
+                        Consumer<PackageAttributeEditor> task, Consumer<PackageAttributeEditor> callback,
+                        Runnable completed) {
+        if (coalescer.trigger(purl, source)) {
+            schedule(new Scheduled(purl, source, priority, task, callback, completed));
+        } else {
+            LOG.debug("Coalesced {} task for {}", source, purl);
+        }
+    }
+
+    private void schedule(Scheduled scheduled) {
+        final Runnable runnable = () -> attempt(scheduled);
+        if (queues.isEmpty()) {
+            runnable.run();
+        } else if (!bulkheadFor(scheduled.source).submit(scheduled.priority, runnable, () -> cancel(scheduled))) {
+            LOG.warn("Dropped {} task for {}", scheduled.source, scheduled.purl);
+            cancel(scheduled);
+        }
+    }
+
+    private void attempt(Scheduled scheduled) {
+        final var breaker = breakerFor(scheduled.source);
+        final var wait = breaker.acquire();
+        if (wait > 0) {
+            LOG.debug("Deferred {} task for {}; source is unavailable", scheduled.source, scheduled.purl);
+            delay(scheduled, wait);
+            return;
+        }
+        coalescer.started(scheduled.purl, scheduled.source);
+        var retry = false;
+        try {
+            run(scheduled.purl, scheduled.task, scheduled.callback);
+            breaker.succeeded();
+            scheduled.attempts = 0;
+        } catch (SourceUnavailableException e) {
+            breaker.failed();
+            retry = ++scheduled.attempts < properties.getRetryAttempts();
+            if (!retry) {
+                breaker.exhausted();
+                throw e;
+            }
+            breaker.retried();
+            LOG.warn("Retrying {} task for {} after attempt {}: {}", scheduled.source, scheduled.purl,
+                    scheduled.attempts, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } catch (RuntimeException e) {
+            breaker.succeeded();
+            throw e;
+        } finally {
+            if (retry) {
+                coalescer.retrying(scheduled.purl, scheduled.source);
+                delay(scheduled, backoff(scheduled.attempts));
+            } else if (coalescer.finished(scheduled.purl, scheduled.source)) {
+                schedule(scheduled);
+            } else {
+                scheduled.completed.run();
+            }
+        }
+    }
+
+    private long backoff(int attempts) {
+        return backoff(properties.getRetryDelay(), properties.getRetryMaxDelay(), attempts);
+    }
+
+    /**
+     * @param attempts number of failed attempts (at least 1)
+     * @return randomized delay in nanoseconds, doubling with every attempt up to the maximum
+     */
+    static long backoff(Duration delay, Duration maxDelay, int attempts) {
+        final var max = maxDelay.toNanos();
+        final var base = delay.toNanos();
+        final var shift = attempts - 1;
+        // Shifting the highest bit of the base into the sign bit would overflow
+        final var doubled = (base > 0 && shift >= Long.numberOfLeadingZeros(base) - 1) ? max : Math.min(max, base << shift);
+        return doubled / 2 + ThreadLocalRandom.current().nextLong(doubled / 2 + 1);
+    }
+
+    private void delay(Scheduled scheduled, long nanos) {
+        try {
+            timer.schedule(() -> schedule(scheduled), nanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            cancel(scheduled);
+        }
+    }
+
+    private void cancel(Scheduled scheduled) {
+        coalescer.cancelled(scheduled.purl, scheduled.source);
+        scheduled.completed.run();
+    }
+
+    private Bulkhead bulkheadFor(String source) {
+        final var bulkhead = bulkheads.get(source);
+        return (bulkhead != null) ? bulkhead : createBulkhead(source);
+    }
+
+    private synchronized Bulkhead createBulkhead(String source) {
+        return bulkheads.computeIfAbsent(source, (key) -> {
+            final var queue = queues.get(cpuListeners.contains(source) ? Workload.CPU : Workload.IO);
+            final var settings = properties.getBulkhead(source);
+            final var bulkhead = new Bulkhead(source, settings.getLimit(), settings.getQueue(), settings.getTimeout(),
+                    (priority, task) -> dispatch(queue, source, priority, task));
+            if (meterRegistry != null) {
+                bulkhead.bindTo(meterRegistry);
+            }
+            return bulkhead;
+        });
+    }
+
+    private CircuitBreaker breakerFor(String source) {
+        final var breaker = breakers.get(source);
+        return (breaker != null) ? breaker : createBreaker(source);
+    }
+
+    private synchronized CircuitBreaker createBreaker(String source) {
+        return breakers.computeIfAbsent(source, (key) -> {
+            final var breaker = new CircuitBreaker(source, properties.getBreakerThreshold(), properties.getBreakerDelay());
+            if (meterRegistry != null) {
+                breaker.bindTo(meterRegistry);
+            }
+            return breaker;
+        });
+    }
+
+    private boolean dispatch(HarvestQueue queue, String source, Priority priority, Runnable task) {
+        if (!queue.offer(priority, task)) {
+            LOG.warn("Queue is full; refused {} task", source);
+            return false;
+        }
+        return true;
+    }
+
+    private void run(PackageURL purl, Consumer<PackageAttributeEditor> task, Consumer<PackageAttributeEditor> callback) {
         store.findPackage(purl).ifPresent(pkg -> {
             final var editor = new PackageAttributeEditor(pkg);
             task.accept(editor);
             callback.accept(editor);
         });
     }
+
+    private void work(HarvestQueue queue) {
+        workers.add(Thread.currentThread());
+        try {
+            //noinspection InfiniteLoopStatement
+            while (true) {
+                final var task = queue.take();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    LOG.error("Task failed", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workers.remove(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Stops all workers.
+     */
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.forEach(Thread::interrupt);
+    }
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        coalescer.bindTo(registry);
+        queues.values().forEach(queue -> queue.bindTo(registry));
+        bulkheads.values().forEach(bulkhead -> bulkhead.bindTo(registry));
+        breakers.values().forEach(breaker -> breaker.bindTo(registry));
+    }
+
+    private static class Scheduled {
+        final PackageURL purl;
+        final String source;
+        final Priority priority;
+        final Consumer<PackageAttributeEditor> task;
+        final Consumer<PackageAttributeEditor> callback;
+        final Runnable completed;
+        int attempts;
+
+        Scheduled(PackageURL purl, String source, Priority priority, Consumer<PackageAttributeEditor> task,
+                  Consumer<PackageAttributeEditor> callback, Runnable completed) {
+            this.purl = purl;
+            this.source = source;
+            this.priority = priority;
+            this.task = task;
+            this.callback = callback;
+            this.completed = completed;
+        }
+    }
+
+    private enum Workload {
+        CPU, IO
+    }
 }
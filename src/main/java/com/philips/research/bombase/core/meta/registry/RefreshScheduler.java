@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Re-harvests stale metadata at a limited rate.
+ * <p>
+ * Every second, at most the budgeted number of stale items is taken from
+ * the staleness index and handed to the dispatcher. If the dispatcher cannot
+ * accept more work, the remaining items are retried in the next second.
+ */
+class RefreshScheduler<K> implements MeterBinder {
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshScheduler.class);
+    private static final long SLOT_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final int rate;
+    private final Predicate<K> dispatcher;
+    private final LongSupplier clock;
+    private final StalenessIndex<K> index = new StalenessIndex<>(SLOT_MILLIS);
+    private final AtomicLong dispatched = new AtomicLong();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "harvest-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param rate       maximum number of items dispatched per second
+     * @param dispatcher schedules the refresh of an item, or returns false if it cannot accept more work
+     */
+    RefreshScheduler(int rate, Predicate<K> dispatcher) {
+        this(rate, dispatcher, System::currentTimeMillis);
+    }
+
+    RefreshScheduler(int rate, Predicate<K> dispatcher, LongSupplier clock) {
+        this.rate = rate;
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts refreshing stale items.
+     */
+    void start() {
+        timer.scheduleWithFixedDelay(this::tickSafely, 1, 1, TimeUnit.SECONDS);
+        LOG.info("Refreshing up to {} stale harvests per second", rate);
+    }
+
+    /**
+     * Stops refreshing stale items.
+     */
+    void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Schedules the refresh of an item.
+     *
+     * @param ttl time until the item becomes stale
+     */
+    void harvested(K key, Duration ttl) {
+        index.schedule(key, clock.getAsLong() + ttl.toMillis());
+    }
+
+    /**
+     * Counts an access to an item.
+     *
+     * @return false if the item is not scheduled for a refresh
+     */
+    boolean accessed(K key) {
+        return index.touch(key);
+    }
+
+    /**
+     * Schedules the refresh of a stored item, unless it is already scheduled.
+     *
+     * @param harvested epoch milliseconds of the last harvest
+     * @return false if the item was already scheduled
+     */
+    boolean stored(K key, long harvested, Duration ttl) {
+        return index.scheduleIfAbsent(key, harvested + ttl.toMillis());
+    }
+
+    /**
+     * Schedules the refresh of an item that was last harvested at the indicated time.
+     *
+     * @param harvested epoch milliseconds of the last harvest
+     */
+    void accessed(K key, long harvested, Duration ttl) {
+        index.schedule(key, harvested + ttl.toMillis());
+        index.touch(key);
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (Exception e) {
+            LOG.error("Refresh of stale harvests failed", e);
+        }
+    }
+
+    /**
+     * Dispatches stale items within the budget of a single second.
+     */
+    void tick() {
+        final var now = clock.getAsLong();
+        final var keys = index.poll(now, rate);
+        for (int i = 0; i < keys.size(); i++) {
+            if (!dispatcher.test(keys.get(i))) {
+                keys.subList(i, keys.size()).forEach(key -> index.schedule(key, now));
+                return;
+            }
+            dispatched.incrementAndGet();
+        }
+    }
+
+    int getScheduled() {
+        return index.size();
+    }
+
+    int getStale() {
+        return index.getStale();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("harvest.refresh.scheduled", this, RefreshScheduler::getScheduled)
+                .description("Number of harvests tracked for a future refresh")
+                .register(registry);
+        Gauge.builder("harvest.refresh.stale", this, RefreshScheduler::getStale)
+                .description("Number of stale harvests waiting for the refresh budget")
+                .register(registry);
+        FunctionCounter.builder("harvest.refresh.dispatched", dispatched, AtomicLong::get)
+                .description("Stale harvests scheduled for a refresh")
+                .register(registry);
+    }
+}
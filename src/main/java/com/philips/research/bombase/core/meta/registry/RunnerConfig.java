@@ -5,23 +5,64 @@
 
 package com.philips.research.bombase.core.meta.registry;
 
+import com.philips.research.bombase.ConfigProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
 
 @Configuration
 public class RunnerConfig {
-    public static final String NAME = "TaskRunner";
+    public static final String CPU_EXECUTOR = "CpuTaskRunner";
+    public static final String IO_EXECUTOR = "IoTaskRunner";
 
-    @Bean(name = NAME)
-    public Executor threadPoolTaskExecutor() {
+    private static final Logger LOG = LoggerFactory.getLogger(RunnerConfig.class);
+
+    /**
+     * @return small pool hosting the workers for CPU-heavy tasks
+     */
+    @Bean(name = CPU_EXECUTOR)
+    public ThreadPoolTaskExecutor cpuExecutor(ConfigProperties properties) {
         final var executor = new ThreadPoolTaskExecutor();
-        executor.setMaxPoolSize(4);
-        executor.setCorePoolSize(2);
-        executor.setThreadGroupName(NAME);
-        executor.setThreadNamePrefix("pool-");
+        executor.setMaxPoolSize(properties.getCpuThreads());
+        executor.setCorePoolSize(properties.getCpuThreads());
+        executor.setQueueCapacity(0);
+        executor.setThreadGroupName(CPU_EXECUTOR);
+        executor.setThreadNamePrefix("cpu-");
+        return executor;
+    }
+
+    /**
+     * @return executor starting a (preferably virtual) thread for every worker of I/O-bound tasks
+     */
+    @Bean(name = IO_EXECUTOR)
+    public Executor ioExecutor(ConfigProperties properties) {
+        final var executor = new SimpleAsyncTaskExecutor("io-");
+        executor.setDaemon(true);
+        if (properties.isVirtualThreads()) {
+            virtualThreadFactory().ifPresentOrElse(executor::setThreadFactory,
+                    () -> LOG.info("Virtual threads are not available; using platform threads for I/O tasks"));
+        }
         return executor;
     }
+
+    /**
+     * Looks up the virtual thread builder reflectively, as it is not available before Java 21.
+     */
+    private static Optional<ThreadFactory> virtualThreadFactory() {
+        try {
+            final var builderClass = Class.forName("java.lang.Thread$Builder");
+            final var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final var named = builderClass.getMethod("name", String.class, long.class).invoke(builder, "io-", 0L);
+            return Optional.of((ThreadFactory) builderClass.getMethod("factory").invoke(named));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Index of items by the time they become stale.
+ * <p>
+ * Items are kept in buckets per time slot, so finding the stale items only
+ * visits the expired slots instead of all items. Stale items are handed out
+ * by descending number of accesses since they were scheduled, and then by
+ * the time they became stale.
+ * <p>
+ * Counting an access does not lock the index, so frequent reads do not
+ * contend with each other or with the scheduling of items.
+ */
+class StalenessIndex<K> {
+    private static final Comparator<Stale<?>> ORDER = Comparator.<Stale<?>>comparingLong(stale -> -stale.accesses)
+            .thenComparingLong(stale -> stale.entry.expires);
+
+    private final long slotMillis;
+    private final Map<K, Entry<K>> entries = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, Set<K>> slots = new TreeMap<>();
+    private final PriorityQueue<Stale<K>> stale = new PriorityQueue<>(ORDER);
+
+    /**
+     * @param slotMillis time span covered by a single bucket
+     */
+    StalenessIndex(long slotMillis) {
+        this.slotMillis = slotMillis;
+    }
+
+    /**
+     * (Re)schedules an item, resetting its access count.
+     *
+     * @param expires epoch milliseconds when the item becomes stale
+     */
+    synchronized void schedule(K key, long expires) {
+        final var previous = entries.put(key, new Entry<>(key, expires));
+        if (previous != null) {
+            unslot(previous);
+        }
+        slots.computeIfAbsent(slotOf(expires), (slot) -> new HashSet<>()).add(key);
+    }
+
+    /**
+     * Schedules an item, unless it is already scheduled.
+     *
+     * @param expires epoch milliseconds when the item becomes stale
+     * @return false if the item was already scheduled
+     */
+    synchronized boolean scheduleIfAbsent(K key, long expires) {
+        if (entries.containsKey(key)) {
+            return false;
+        }
+        schedule(key, expires);
+        return true;
+    }
+
+    /**
+     * Counts an access to an item.
+     *
+     * @return false if the item is not in the index
+     */
+    boolean touch(K key) {
+        final var entry = entries.get(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.accesses.increment();
+        return true;
+    }
+
+    /**
+     * Removes stale items from the index.
+     *
+     * @param now epoch milliseconds
+     * @param max maximum number of items
+     * @return stale items in order of priority
+     */
+    synchronized List<K> poll(long now, int max) {
+        final var expired = slots.headMap(slotOf(now), true);
+        expired.values().forEach(keys -> keys.forEach(key -> {
+            final var entry = entries.get(key);
+            if (entry != null) {
+                stale.add(new Stale<>(entry));
+            }
+        }));
+        expired.clear();
+
+        final var result = new ArrayList<K>();
+        while (result.size() < max && !stale.isEmpty()) {
+            final var next = stale.poll();
+            if (entries.get(next.entry.key) == next.entry) {
+                entries.remove(next.entry.key);
+                result.add(next.entry.key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of indexed items
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of items found stale, but not yet handed out
+     */
+    synchronized int getStale() {
+        return stale.size();
+    }
+
+    private void unslot(Entry<K> entry) {
+        final var slot = slotOf(entry.expires);
+        final var keys = slots.get(slot);
+        if (keys != null) {
+            keys.remove(entry.key);
+            if (keys.isEmpty()) {
+                slots.remove(slot);
+            }
+        }
+    }
+
+    private long slotOf(long millis) {
+        return Math.floorDiv(millis, slotMillis);
+    }
+
+    private static class Entry<K> {
+        final K key;
+        final long expires;
+        final LongAdder accesses = new LongAdder();
+
+        Entry(K key, long expires) {
+            this.key = key;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Snapshot of an entry, because the priority queue requires a stable order.
+     */
+    private static class Stale<K> {
+        final Entry<K> entry;
+        final long accesses;
+
+        Stale(Entry<K> entry) {
+            this.entry = entry;
+            this.accesses = entry.accesses.sum();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the harvesting tasks per package and listener to merge duplicate triggers.
+ * <p>
+ * A trigger for a task that is still pending is absorbed by that task. A
+ * trigger for a running task results in (at most) a single follow-up run
+ * after the task completes, because the running task might have read the
+ * package before it was modified. Tasks read the package when they run, so
+ * the merged task observes the effect of all absorbed triggers.
+ */
+class TaskCoalescer implements MeterBinder {
+    private final Map<Key, State> states = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong reruns = new AtomicLong();
+
+    /**
+     * Registers a trigger for a task.
+     *
+     * @return true if the task must be scheduled
+     */
+    boolean trigger(PackageURL purl, String source) {
+        final var isNew = new boolean[1];
+        states.compute(new Key(purl, source), (key, state) -> {
+            if (state == null) {
+                isNew[0] = true;
+                return State.PENDING;
+            }
+            coalesced.incrementAndGet();
+            return (state == State.RUNNING) ? State.RERUN : state;
+        });
+        return isNew[0];
+    }
+
+    /**
+     * Notifies a scheduled task starts running.
+     */
+    void started(PackageURL purl, String source) {
+        states.computeIfPresent(new Key(purl, source), (key, state) -> (state == State.PENDING) ? State.RUNNING : state);
+    }
+
+    /**
+     * Notifies a task completed.
+     *
+     * @return true if the task must be scheduled again
+     */
+    boolean finished(PackageURL purl, String source) {
+        final var state = states.computeIfPresent(new Key(purl, source), (key, current) -> (current == State.RERUN) ? State.PENDING : null);
+        if (state != null) {
+            reruns.incrementAndGet();
+        }
+        return state != null;
+    }
+
+    /**
+     * Notifies a failed task is scheduled for another attempt, which absorbs any follow-up run.
+     */
+    void retrying(PackageURL purl, String source) {
+        states.computeIfPresent(new Key(purl, source), (key, state) -> State.PENDING);
+    }
+
+    /**
+     * Forgets a scheduled task that will never run.
+     */
+    void cancelled(PackageURL purl, String source) {
+        states.remove(new Key(purl, source));
+    }
+
+    int getScheduled() {
+        return states.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("harvest.tasks.scheduled", this, TaskCoalescer::getScheduled)
+                .description("Number of distinct pending or running harvesting tasks")
+                .register(registry);
+        FunctionCounter.builder("harvest.tasks.coalesced", coalesced, AtomicLong::get)
+                .description("Harvesting triggers merged into a pending or running task")
+                .register(registry);
+        FunctionCounter.builder("harvest.tasks.reruns", reruns, AtomicLong::get)
+                .description("Follow-up runs for tasks triggered while running")
+                .register(registry);
+    }
+
+    private enum State {
+        PENDING, RUNNING, RERUN
+    }
+
+    private static class Key {
+        final PackageURL purl;
+        final String source;
+
+        Key(PackageURL purl, String source) {
+            this.purl = purl;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(@NullOr Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return purl.equals(key.purl) && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(purl, source);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Publishes package modifications to subscribers.
+ * <p>
+ * Publishing never blocks the harvesting: every subscriber buffers a limited
+ * number of modifications, which are delivered by a separate thread while
+ * the subscriber has pending modifications. A subscriber that cannot keep
+ * up overflows its buffer and is dropped, so the client can reconnect and
+ * catch up by reading the current metadata.
+ */
+public class UpdateFeed implements MeterBinder {
+    private static final Logger LOG = LoggerFactory.getLogger(UpdateFeed.class);
+
+    private final int capacity;
+    private final Executor executor;
+    private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity maximum number of buffered modifications per subscriber
+     */
+    UpdateFeed(int capacity) {
+        this(capacity, Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "update-feed");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    UpdateFeed(int capacity, Executor executor) {
+        this.capacity = capacity;
+        this.executor = executor;
+    }
+
+    /**
+     * Registers a subscriber for package modifications.
+     *
+     * @param filter   selects the packages of interest
+     * @param consumer receives the modified fields of a package; an exception ends the subscription
+     * @param closed   invoked once when the subscription ends
+     * @return active subscription
+     */
+    Subscription subscribe(Predicate<PackageURL> filter, BiConsumer<PackageURL, Set<Field>> consumer, Runnable closed) {
+        final var subscription = new Subscription(filter, consumer, closed);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Notifies all interested subscribers of a package modification.
+     */
+    void publish(PackageURL purl, Set<Field> fields) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        final var update = new Update(purl, Set.copyOf(fields));
+        subscriptions.forEach(subscription -> subscription.offer(update));
+    }
+
+    int getSubscribers() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("updates.subscribers", this, UpdateFeed::getSubscribers)
+                .description("Number of subscribers to package modifications")
+                .register(registry);
+        FunctionCounter.builder("updates.dropped", dropped, AtomicLong::get)
+                .description("Subscribers dropped because they could not keep up")
+                .register(registry);
+    }
+
+    /**
+     * Subscription to package modifications with its own bounded buffer.
+     */
+    public class Subscription {
+        private final Predicate<PackageURL> filter;
+        private final BiConsumer<PackageURL, Set<Field>> consumer;
+        private final Runnable closed;
+        private final Queue<Update> buffer = new ArrayBlockingQueue<>(capacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean active = new AtomicBoolean(true);
+
+        Subscription(Predicate<PackageURL> filter, BiConsumer<PackageURL, Set<Field>> consumer, Runnable closed) {
+            this.filter = filter;
+            this.consumer = consumer;
+            this.closed = closed;
+        }
+
+        void offer(Update update) {
+            if (!filter.test(update.purl)) {
+                return;
+            }
+            if (!buffer.offer(update)) {
+                dropped.incrementAndGet();
+                LOG.warn("Dropped a slow subscriber to package modifications");
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    Update update;
+                    while (active.get() && (update = buffer.poll()) != null) {
+                        consumer.accept(update.purl, update.fields);
+                    }
+                } catch (Exception e) {
+                    LOG.debug("Subscriber to package modifications failed: {}", e.getMessage());
+                    close();
+                }
+                draining.set(false);
+            } while (active.get() && !buffer.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        /**
+         * Ends the subscription.
+         */
+        public void close() {
+            if (active.compareAndSet(true, false)) {
+                subscriptions.remove(this);
+                buffer.clear();
+                closed.run();
+            }
+        }
+
+        boolean isActive() {
+            return active.get();
+        }
+    }
+
+    private static class Update {
+        final PackageURL purl;
+        final Set<Field> fields;
+
+        Update(PackageURL purl, Set<Field> fields) {
+            this.purl = purl;
+            this.fields = fields;
+        }
+    }
+}
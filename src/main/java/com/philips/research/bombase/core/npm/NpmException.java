@@ -15,4 +15,12 @@ public class NpmException extends BusinessException {
     public NpmException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    public NpmException(String message, boolean temporary) {
+        super(message, temporary);
+    }
+
+    public NpmException(String message, Throwable cause, boolean temporary) {
+        super(message, cause, temporary);
+    }
 }
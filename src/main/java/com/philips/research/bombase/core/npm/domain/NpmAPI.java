@@ -9,9 +9,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Trust;
+import com.philips.research.bombase.core.support.HttpCache;
 import pl.tlinkowski.annotation.basic.NullOr;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Path;
 
 import java.net.URI;
@@ -21,6 +23,7 @@ import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public interface NpmAPI {
+    @Headers(HttpCache.IMMUTABLE)
     @GET("{project}/{version}")
     Call<ResponseJson> getDefinition(@Path("project") String project,
                                      @Path("version") String version);
@@ -14,6 +14,8 @@ import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.npm.NpmException;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import retrofit2.Call;
 import retrofit2.Retrofit;
@@ -23,6 +25,8 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
 
+import static com.philips.research.bombase.core.BusinessException.isTemporaryStatus;
+
 @Component
 public class NpmClient {
     private static final ObjectMapper MAPPER = new ObjectMapper()
@@ -32,13 +36,19 @@ public class NpmClient {
 
     private final NpmAPI rest;
 
-    NpmClient() {
-        this(URI.create("https://registry.npmjs.org"));
+    @Autowired
+    NpmClient(OkHttpClient client) {
+        this(URI.create("https://registry.npmjs.org"), client);
     }
 
     NpmClient(URI uri) {
+        this(uri, new OkHttpClient());
+    }
+
+    NpmClient(URI uri, OkHttpClient client) {
         final var retrofit = new Retrofit.Builder()
                 .baseUrl(uri.toASCIIString())
+                .client(client)
                 .addConverterFactory(JacksonConverterFactory.create(MAPPER))
                 .build();
         rest = retrofit.create(NpmAPI.class);
@@ -56,13 +66,13 @@ public class NpmClient {
                 return Optional.empty();
             }
             if (!response.isSuccessful()) {
-                throw new NpmException("NPM server responded with status " + response.code());
+                throw new NpmException("NPM server responded with status " + response.code(), isTemporaryStatus(response.code()));
             }
             return Optional.ofNullable(response.body());
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("JSON formatting error", e);
         } catch (IOException e) {
-            throw new NpmException("NPM is not reachable");
+            throw new NpmException("NPM is not reachable", e, true);
         }
     }
 }
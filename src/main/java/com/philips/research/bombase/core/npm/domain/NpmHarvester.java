@@ -6,14 +6,15 @@
 package com.philips.research.bombase.core.npm.domain;
 
 import com.philips.research.bombase.core.meta.AbstractRepoHarvester;
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class NpmHarvester extends AbstractRepoHarvester {
     @Autowired
-    NpmHarvester(NpmClient client) {
-        super(client::getPackageMetadata);
+    NpmHarvester(NpmClient client, NegativeCache unknown) {
+        super(client::getPackageMetadata, unknown);
     }
 
     @Override
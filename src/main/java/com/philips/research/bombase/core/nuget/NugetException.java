@@ -15,4 +15,12 @@ public class NugetException extends BusinessException {
     public NugetException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    public NugetException(String message, boolean temporary) {
+        super(message, temporary);
+    }
+
+    public NugetException(String message, Throwable cause, boolean temporary) {
+        super(message, cause, temporary);
+    }
 }
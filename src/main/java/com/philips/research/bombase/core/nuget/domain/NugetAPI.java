@@ -9,9 +9,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Trust;
+import com.philips.research.bombase.core.support.HttpCache;
 import pl.tlinkowski.annotation.basic.NullOr;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Path;
 
 import java.net.URI;
@@ -33,9 +35,11 @@ public interface NugetAPI {
     Call<CatalogResponseJson> getCatalogEntry(@Path("project") String project,
                                               @Path("version") String version);
 
+    @Headers(HttpCache.IMMUTABLE)
     @GET("{catalogEntryUrl}")
     Call<ResponseJson> getDefinition(@Path("catalogEntryUrl") String catalogEntryUrl);
 
+    @Headers(HttpCache.IMMUTABLE)
     @GET("{nugetSpecUrl}")
     Call<XmlNugetSpecPackage> getNugetSpec(@Path("nugetSpecUrl") String nugetSpecUrl);
 
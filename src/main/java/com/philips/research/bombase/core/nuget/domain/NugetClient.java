@@ -15,6 +15,8 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.nuget.NugetException;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import retrofit2.Call;
 import retrofit2.Retrofit;
@@ -25,6 +27,8 @@ import java.net.URI;
 import java.util.Locale;
 import java.util.Optional;
 
+import static com.philips.research.bombase.core.BusinessException.isTemporaryStatus;
+
 @Component
 public class NugetClient {
     private static final ObjectMapper MAPPER = new ObjectMapper()
@@ -38,17 +42,24 @@ public class NugetClient {
     private final NugetAPI restXml;
     private final URI baseURI;
 
-    NugetClient() {
-        this(URI.create("https://api.nuget.org/v3/"));
+    @Autowired
+    NugetClient(OkHttpClient client) {
+        this(URI.create("https://api.nuget.org/v3/"), client);
     }
 
     NugetClient(URI uri) {
+        this(uri, new OkHttpClient());
+    }
+
+    NugetClient(URI uri, OkHttpClient client) {
         final var retrofitJson = new Retrofit.Builder()
                 .baseUrl(uri.toASCIIString())
+                .client(client)
                 .addConverterFactory(JacksonConverterFactory.create(MAPPER))
                 .build();
         final var retrofitXML = new Retrofit.Builder()
                 .baseUrl(uri.toASCIIString())
+                .client(client)
                 .addConverterFactory(JacksonConverterFactory.create(XML_MAPPER))
                 .build();
         restJson = retrofitJson.create(NugetAPI.class);
@@ -83,13 +94,13 @@ public class NugetClient {
             }
             if (!response.isSuccessful()) {
                 throw new NugetException("Nuget server responded with status " +
-                        response.code());
+                        response.code(), isTemporaryStatus(response.code()));
             }
             return Optional.ofNullable(response.body());
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("JSON/XML formatting error", e);
         } catch (IOException e) {
-            throw new NugetException("Nuget is not reachable");
+            throw new NugetException("Nuget is not reachable", e, true);
         }
     }
 }
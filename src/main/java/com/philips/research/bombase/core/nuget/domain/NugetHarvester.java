@@ -6,14 +6,15 @@
 package com.philips.research.bombase.core.nuget.domain;
 
 import com.philips.research.bombase.core.meta.AbstractRepoHarvester;
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class NugetHarvester extends AbstractRepoHarvester {
     @Autowired
-    NugetHarvester(NugetClient client) {
-        super(client::getPackageMetadata);
+    NugetHarvester(NugetClient client, NegativeCache unknown) {
+        super(client::getPackageMetadata, unknown);
     }
 
     @Override
@@ -15,4 +15,12 @@ public class PyPiException extends BusinessException {
     public PyPiException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    public PyPiException(String message, boolean temporary) {
+        super(message, temporary);
+    }
+
+    public PyPiException(String message, Throwable cause, boolean temporary) {
+        super(message, cause, temporary);
+    }
 }
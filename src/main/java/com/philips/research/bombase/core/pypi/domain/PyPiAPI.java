@@ -8,9 +8,11 @@ package com.philips.research.bombase.core.pypi.domain;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Trust;
+import com.philips.research.bombase.core.support.HttpCache;
 import pl.tlinkowski.annotation.basic.NullOr;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Path;
 
 import java.net.URI;
@@ -27,6 +29,7 @@ public interface PyPiAPI {
     String SOURCE_FILE = "sdist";
     String BINARY_FILE = "bdist_wheel";
 
+    @Headers(HttpCache.IMMUTABLE)
     @GET("pypi/{project}/{version}/json")
     Call<ResponseJson> getDefinition(@Path("project") String project, @Path("version") String version);
 
@@ -14,6 +14,8 @@ import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.pypi.PyPiException;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import retrofit2.Call;
 import retrofit2.Retrofit;
@@ -23,6 +25,8 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
 
+import static com.philips.research.bombase.core.BusinessException.isTemporaryStatus;
+
 @Component
 public class PyPiClient {
     private static final ObjectMapper MAPPER = new ObjectMapper()
@@ -32,13 +36,19 @@ public class PyPiClient {
 
     private final PyPiAPI rest;
 
-    PyPiClient() {
-        this(URI.create("https://pypi.org"));
+    @Autowired
+    PyPiClient(OkHttpClient client) {
+        this(URI.create("https://pypi.org"), client);
     }
 
     PyPiClient(URI uri) {
+        this(uri, new OkHttpClient());
+    }
+
+    PyPiClient(URI uri, OkHttpClient client) {
         final var retrofit = new Retrofit.Builder()
                 .baseUrl(uri.toASCIIString())
+                .client(client)
                 .addConverterFactory(JacksonConverterFactory.create(MAPPER))
                 .build();
         rest = retrofit.create(PyPiAPI.class);
@@ -60,13 +70,13 @@ public class PyPiClient {
                 return Optional.empty();
             }
             if (!response.isSuccessful()) {
-                throw new PyPiException("PyPi server responded with status " + response.code());
+                throw new PyPiException("PyPi server responded with status " + response.code(), isTemporaryStatus(response.code()));
             }
             return Optional.ofNullable(response.body());
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("JSON formatting error", e);
         } catch (IOException e) {
-            throw new PyPiException("PyPi is not reachable");
+            throw new PyPiException("PyPi is not reachable", e, true);
         }
     }
 }
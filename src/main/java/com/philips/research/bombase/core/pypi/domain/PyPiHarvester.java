@@ -6,14 +6,15 @@
 package com.philips.research.bombase.core.pypi.domain;
 
 import com.philips.research.bombase.core.meta.AbstractRepoHarvester;
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PyPiHarvester extends AbstractRepoHarvester {
     @Autowired
-    PyPiHarvester(PyPiClient client) {
-        super(client::getPackageMetadata);
+    PyPiHarvester(PyPiClient client, NegativeCache unknown) {
+        super(client::getPackageMetadata, unknown);
     }
 
     @Override
@@ -7,6 +7,7 @@ package com.philips.research.bombase.core.source_scan.domain;
 
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Interest;
 import com.philips.research.bombase.core.meta.registry.MetaRegistry;
 import com.philips.research.bombase.core.meta.registry.PackageAttributeEditor;
 import com.philips.research.bombase.core.meta.registry.Trust;
@@ -28,6 +29,11 @@ public class SourceLicensesHarvester implements MetaRegistry.PackageListener {
         this.scanner = scanner;
     }
 
+    @Override
+    public Interest getInterest() {
+        return Interest.modified(Field.SOURCE_LOCATION).produces(Set.of(Field.DETECTED_LICENSES));
+    }
+
     @Override
     public Optional<Consumer<PackageAttributeEditor>> onUpdated(PackageURL purl, Set<Field> updated, Map<Field, Object> values) {
         if (!updated.contains(Field.SOURCE_LOCATION)) {
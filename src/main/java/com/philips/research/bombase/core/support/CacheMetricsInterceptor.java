@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how the HTTP response cache served the requests to every registry host.
+ */
+class CacheMetricsInterceptor implements Interceptor {
+    private final MeterRegistry registry;
+    private final Map<String, Stats> hosts = new ConcurrentHashMap<>();
+
+    CacheMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final var response = chain.proceed(chain.request());
+        final var stats = hosts.computeIfAbsent(chain.request().url().host(), this::register);
+        if (response.networkResponse() == null) {
+            stats.hits.incrementAndGet();
+        } else if (response.cacheResponse() != null) {
+            stats.revalidated.incrementAndGet();
+        } else {
+            stats.misses.incrementAndGet();
+        }
+        return response;
+    }
+
+    private Stats register(String host) {
+        final var stats = new Stats();
+        counter(host, "hit", stats.hits);
+        counter(host, "revalidated", stats.revalidated);
+        counter(host, "miss", stats.misses);
+        Gauge.builder("http.client.registry.cache.hit.ratio", stats, Stats::getHitRatio)
+                .description("Fraction of the requests served from the cache without network access")
+                .tag("host", host)
+                .register(registry);
+        return stats;
+    }
+
+    private void counter(String host, String result, AtomicLong count) {
+        FunctionCounter.builder("http.client.registry.cache", count, AtomicLong::get)
+                .description("Requests to a registry by how the cache served them (hit, revalidated or miss)")
+                .tag("host", host)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static class Stats {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong revalidated = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        double getHitRatio() {
+            final var hit = hits.get();
+            final var total = hit + revalidated.get() + misses.get();
+            return (total > 0) ? (double) hit / total : 0.0;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.support;
+
+/**
+ * Request markers for the shared HTTP response cache.
+ */
+public final class HttpCache {
+    /**
+     * Marks a request for a resource that never changes, like the document of a released version.
+     */
+    public static final String IMMUTABLE_HEADER = "X-Immutable-Resource";
+    /**
+     * Marker in the format of the Retrofit {@link retrofit2.http.Headers} annotation.
+     */
+    public static final String IMMUTABLE = IMMUTABLE_HEADER + ": true";
+
+    private HttpCache() {
+    }
+}
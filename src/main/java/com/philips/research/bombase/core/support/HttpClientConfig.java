@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.support;
+
+import com.philips.research.bombase.ConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpConnectionPoolMetrics;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpMetricsEventListener;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the HTTP transport shared by all registry clients.
+ * <p>
+ * Sharing a single client lets all registries reuse the same connection pool
+ * and dispatcher, instead of every client keeping its own idle connections.
+ * The optional response cache honours the caching headers of the registries,
+ * and revalidates stale responses using conditional requests. Requests for
+ * immutable resources (see {@link HttpCache}) are served from the cache
+ * without network access.
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientConfig.class);
+
+    /**
+     * @return client with a shared connection pool, preferring HTTP/2 where the server supports it,
+     * and a persistent response cache if a cache directory is configured
+     */
+    @Bean
+    public OkHttpClient httpClient(ConfigProperties properties, MeterRegistry registry) {
+        final var dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(properties.getHttpMaxRequests());
+        dispatcher.setMaxRequestsPerHost(properties.getHttpMaxRequestsPerHost());
+        final var pool = new ConnectionPool(properties.getHttpMaxIdleConnections(),
+                properties.getHttpKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        final var builder = new OkHttpClient.Builder();
+        final var cacheDirectory = properties.getHttpCacheDirectory();
+        if (cacheDirectory != null) {
+            builder.cache(new Cache(cacheDirectory.toFile(), properties.getHttpCacheSize().toBytes()))
+                    .addInterceptor(new CacheMetricsInterceptor(registry));
+            LOG.info("Caching up to {} of registry responses in {}", properties.getHttpCacheSize(), cacheDirectory);
+        }
+        return builder
+                .addNetworkInterceptor(new ImmutableResponseInterceptor(properties.getHttpCacheImmutableMaxAge()))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionPool(pool)
+                .dispatcher(dispatcher)
+                .connectTimeout(properties.getHttpConnectTimeout())
+                .readTimeout(properties.getHttpReadTimeout())
+                .eventListener(OkHttpMetricsEventListener.builder(registry, "http.client.registry.requests")
+                        .includeHostTag(true)
+                        .build())
+                .build();
+    }
+
+    /**
+     * @return metrics on the reuse of the pooled connections
+     */
+    @Bean
+    public OkHttpConnectionPoolMetrics httpConnectionPoolMetrics(OkHttpClient httpClient) {
+        return new OkHttpConnectionPoolMetrics(httpClient.connectionPool(), "http.client.registry.pool", Tags.empty());
+    }
+}
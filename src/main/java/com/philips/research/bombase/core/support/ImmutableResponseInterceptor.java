@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.support;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Marks successful responses to requests for immutable resources as fresh for a long time.
+ * <p>
+ * Registries often serve documents of released versions with a short cache
+ * lifetime, although these documents never change. Requests carrying the
+ * immutable marker header get their successful responses cached for the
+ * configured lifetime instead, so the cache serves them without network
+ * access. The marker header itself is not sent to the registry.
+ */
+class ImmutableResponseInterceptor implements Interceptor {
+    private final String cacheControl;
+
+    ImmutableResponseInterceptor(Duration maxAge) {
+        this.cacheControl = "public, max-age=" + maxAge.getSeconds() + ", immutable";
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final var request = chain.request();
+        if (request.header(HttpCache.IMMUTABLE_HEADER) == null) {
+            return chain.proceed(request);
+        }
+        final var response = chain.proceed(request.newBuilder().removeHeader(HttpCache.IMMUTABLE_HEADER).build());
+        if (response.code() != 200) {
+            return response;
+        }
+        return response.newBuilder()
+                .header("Cache-Control", cacheControl)
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .build();
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.TaskJournal;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Priority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Task journal in an append-only {@link SegmentLog}.
+ * <p>
+ * Requests and completions are appended as records, while the unfinished
+ * tasks are kept in memory. Requests for the same package and listener are
+ * merged into a single task with the highest priority and all triggering
+ * fields. On startup the unfinished tasks are rebuilt by replaying the log.
+ * Records are flushed to disk every second, so a crash loses at most the
+ * requests of the last second. Once the log spans multiple segments, the
+ * unfinished tasks are rewritten to the active segment and the sealed
+ * segments are removed.
+ */
+public class FileTaskJournal implements TaskJournal, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(FileTaskJournal.class);
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final long FLUSH_INTERVAL_SECONDS = 1;
+    private static final long COMPACTION_INTERVAL_SECONDS = 60;
+    private static final byte REQUESTED = 1;
+    private static final byte COMPLETED = 2;
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final Field[] FIELDS = Field.values();
+
+    private final SegmentLog log;
+    private final Map<Key, Task> unfinished = new HashMap<>();
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "journal-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long sequence;
+
+    public FileTaskJournal(Path directory) {
+        this(directory, SEGMENT_SIZE);
+    }
+
+    FileTaskJournal(Path directory, int segmentSize) {
+        log = new SegmentLog(directory, segmentSize);
+        log.replay((location, payload) -> apply(payload));
+        LOG.info("Found {} unfinished harvesting tasks", unfinished.size());
+        maintenance.scheduleWithFixedDelay(log::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::compactSafely, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized long requested(PackageURL purl, String listener, Priority priority, Set<Field> fields) {
+        final var task = new Task(++sequence, purl, listener, priority, fields);
+        log.append(encodeRequest(task));
+        merge(task);
+        return task.getSequence();
+    }
+
+    @Override
+    public synchronized long position() {
+        return sequence;
+    }
+
+    @Override
+    public synchronized void completed(PackageURL purl, String listener, long covered) {
+        final var key = new Key(purl, listener);
+        if (!unfinished.containsKey(key)) {
+            return;
+        }
+        log.append(encodeCompletion(key, covered));
+        complete(key, covered);
+    }
+
+    @Override
+    public synchronized List<Task> unfinished() {
+        return unfinished.values().stream()
+                .sorted(Comparator.comparing(Task::getPriority).thenComparingLong(Task::getSequence))
+                .collect(Collectors.toList());
+    }
+
+    private void merge(Task task) {
+        unfinished.merge(new Key(task.getPurl(), task.getListener()), task, (existing, added) -> {
+            final var fields = EnumSet.noneOf(Field.class);
+            fields.addAll(existing.getFields());
+            fields.addAll(added.getFields());
+            final var priority = (existing.getPriority().compareTo(added.getPriority()) <= 0)
+                    ? existing.getPriority() : added.getPriority();
+            return new Task(Math.max(existing.getSequence(), added.getSequence()),
+                    added.getPurl(), added.getListener(), priority, fields);
+        });
+    }
+
+    private void complete(Key key, long covered) {
+        unfinished.computeIfPresent(key, (k, task) -> (task.getSequence() <= covered) ? null : task);
+    }
+
+    private void compactSafely() {
+        try {
+            compact();
+        } catch (Exception e) {
+            LOG.error("Compaction of the task journal failed", e);
+        }
+    }
+
+    /**
+     * Rewrites all unfinished tasks, and removes the segments that were sealed before.
+     */
+    synchronized void compact() {
+        final var sealed = log.sealedSegments();
+        if (sealed.isEmpty()) {
+            return;
+        }
+        unfinished.values().forEach(task -> log.append(encodeRequest(task)));
+        log.flush();
+        sealed.forEach(log::delete);
+        LOG.info("Compacted task journal to {} unfinished tasks", unfinished.size());
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdown();
+        synchronized (this) {
+            log.flush();
+        }
+    }
+
+    private void apply(ByteBuffer payload) {
+        final var type = payload.get();
+        final var seq = payload.getLong();
+        final var purl = toPurl(readString(payload));
+        final var listener = readString(payload);
+        if (type == REQUESTED) {
+            final var priority = PRIORITIES[payload.get()];
+            merge(new Task(seq, purl, listener, priority, fieldsOf(payload.getLong())));
+            sequence = Math.max(sequence, seq);
+        } else if (type == COMPLETED) {
+            complete(new Key(purl, listener), seq);
+        } else {
+            throw new IllegalArgumentException("Unknown journal record type " + type);
+        }
+    }
+
+    private static byte[] encodeRequest(Task task) {
+        return encode(REQUESTED, task.getSequence(), task.getPurl(), task.getListener(), out -> {
+            out.writeByte(task.getPriority().ordinal());
+            out.writeLong(maskOf(task.getFields()));
+        });
+    }
+
+    private static byte[] encodeCompletion(Key key, long covered) {
+        return encode(COMPLETED, covered, key.purl, key.listener, out -> {
+        });
+    }
+
+    private static byte[] encode(byte type, long seq, PackageURL purl, String listener, Writer details) {
+        try {
+            final var bytes = new ByteArrayOutputStream(128);
+            final var out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeLong(seq);
+            writeString(out, purl.canonicalize());
+            writeString(out, listener);
+            details.write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long maskOf(Set<Field> fields) {
+        long mask = 0;
+        for (var field : fields) {
+            mask |= 1L << field.ordinal();
+        }
+        return mask;
+    }
+
+    private static Set<Field> fieldsOf(long mask) {
+        final var fields = EnumSet.noneOf(Field.class);
+        for (var field : FIELDS) {
+            if ((mask & (1L << field.ordinal())) != 0) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        final var bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static PackageURL toPurl(String purl) {
+        try {
+            return new PackageURL(purl);
+        } catch (MalformedPackageURLException e) {
+            throw new IllegalArgumentException("Journaled package URL is malformed: " + purl, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static class Key {
+        final PackageURL purl;
+        final String listener;
+
+        Key(PackageURL purl, String listener) {
+            this.purl = purl;
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean equals(@NullOr Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return purl.equals(key.purl) && listener.equals(key.listener);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(purl, listener);
+        }
+    }
+}
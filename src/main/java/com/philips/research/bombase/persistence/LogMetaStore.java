@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.registry.Package;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk-backed package store.
+ * <p>
+ * Every created or modified package is appended as a full record to a
+ * {@link SegmentLog}, while an in-memory key index keeps the location of the
+ * latest record per package. On startup only the latest record of every
+ * package is decoded. A background task rewrites the live records of sealed
+ * segments that mostly contain superseded records, and then removes these
+ * segments.
+ */
+public class LogMetaStore extends MemoryMetaStore implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(LogMetaStore.class);
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final double MIN_LIVE_RATIO = 0.5;
+    private static final long FLUSH_INTERVAL_SECONDS = 1;
+    private static final long COMPACTION_INTERVAL_SECONDS = 60;
+
+    private final SegmentLog log;
+    private final Map<PackageURL, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, SegmentUsage> usage = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "store-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LogMetaStore(Path directory) {
+        this(directory, SEGMENT_SIZE);
+    }
+
+    LogMetaStore(Path directory, int segmentSize) {
+        log = new SegmentLog(directory, segmentSize);
+        load();
+        maintenance.scheduleWithFixedDelay(log::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::compactSafely, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void load() {
+        final var start = System.currentTimeMillis();
+        final var latest = new HashMap<PackageURL, ByteBuffer>();
+        log.replay((location, payload) -> {
+            final var purl = PackageCodec.decodePurl(payload.duplicate());
+            final var size = SegmentLog.HEADER_SIZE + payload.remaining();
+            usageOf(location).written(size);
+            final var previous = entries.put(purl, new Entry(location, size));
+            if (previous != null) {
+                usageOf(previous.location).superseded(previous.size);
+            }
+            latest.put(purl, payload);
+        });
+        latest.values().forEach(payload -> {
+            final var record = PackageCodec.decode(payload);
+            restore(record.purl, record.lastUpdated, record.attributes);
+        });
+        LOG.info("Loaded {} packages in {} ms", latest.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    protected void packageCreated(Package pkg) {
+        write(pkg);
+    }
+
+    @Override
+    protected void packageUpdated(Package pkg) {
+        write(pkg);
+    }
+
+    private synchronized void write(Package pkg) {
+        final var payload = PackageCodec.encode(pkg);
+        final var location = log.append(payload);
+        final var size = SegmentLog.HEADER_SIZE + payload.length;
+        usageOf(location).written(size);
+        final var previous = entries.put(pkg.getPurl(), new Entry(location, size));
+        if (previous != null) {
+            usageOf(previous.location).superseded(previous.size);
+        }
+    }
+
+    private SegmentUsage usageOf(long location) {
+        return usage.computeIfAbsent(SegmentLog.segmentOf(location), (key) -> new SegmentUsage());
+    }
+
+    private void compactSafely() {
+        try {
+            compact();
+        } catch (Exception e) {
+            LOG.error("Compaction of the package log failed", e);
+        }
+    }
+
+    /**
+     * Rewrites the live records of sparse sealed segments, and removes these segments.
+     */
+    void compact() {
+        for (var segment : log.sealedSegments()) {
+            final var segmentUsage = usage.getOrDefault(segment, new SegmentUsage());
+            if (segmentUsage.liveRatio() >= MIN_LIVE_RATIO) {
+                continue;
+            }
+            LOG.info("Compacting log segment {}", segment);
+            entries.forEach((purl, entry) -> {
+                if (SegmentLog.segmentOf(entry.location) == segment) {
+                    findPackage(purl).ifPresent(this::write);
+                }
+            });
+            log.flush();
+            log.delete(segment);
+            usage.remove(segment);
+        }
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdown();
+        log.flush();
+    }
+
+    private static class Entry {
+        final long location;
+        final int size;
+
+        Entry(long location, int size) {
+            this.location = location;
+            this.size = size;
+        }
+    }
+
+    private static class SegmentUsage {
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong live = new AtomicLong();
+
+        void written(int size) {
+            written.addAndGet(size);
+            live.addAndGet(size);
+        }
+
+        void superseded(int size) {
+            live.addAndGet(-size);
+        }
+
+        double liveRatio() {
+            final var total = written.get();
+            return (total > 0) ? (double) live.get() / total : 0.0;
+        }
+    }
+}
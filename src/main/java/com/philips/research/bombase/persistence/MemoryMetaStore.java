@@ -10,19 +10,134 @@ import com.philips.research.bombase.core.meta.MetaStore;
 import com.philips.research.bombase.core.meta.registry.Attribute;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Package;
-import org.springframework.stereotype.Repository;
 import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@Repository
+/**
+ * Thread-safe in-memory package store.
+ * <p>
+ * Packages are indexed on type, namespace and name for version lookups, and
+ * on the distinct values of their purl components for substring searches.
+ * A search resolves every fragment to the matching component values, and
+ * then only scans the packages of the most selective component.
+ * A recency index is kept ordered on modification timestamp, so the latest
+ * packages are read from its head instead of sorting the full store.
+ * The type of purls and the license values are shared across packages
+ * through a dictionary, as they have few distinct values.
+ */
 public class MemoryMetaStore implements MetaStore {
-    private final Map<PackageURL, Package> packages = new HashMap<>();
+    private static final int MAX_RESULTS = 100;
+    private static final Set<Field> SHARED_FIELDS = EnumSet.of(Field.DECLARED_LICENSE, Field.DETECTED_LICENSES);
+    private static final Comparator<IndexedPackage> MOST_RECENT_FIRST = Comparator
+            .comparing(IndexedPackage::getLastUpdated, Comparator.reverseOrder())
+            .thenComparingLong(pkg -> pkg.sequence);
+
+    private final Map<PackageURL, IndexedPackage> packages = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Map<String, Set<IndexedPackage>>>> index = new ConcurrentHashMap<>();
+    private final NgramIndex<IndexedPackage> types = new NgramIndex<>();
+    private final NgramIndex<IndexedPackage> namespaces = new NgramIndex<>();
+    private final NgramIndex<IndexedPackage> names = new NgramIndex<>();
+    private final NgramIndex<IndexedPackage> versions = new NgramIndex<>();
+    private final NavigableSet<IndexedPackage> recent = new ConcurrentSkipListSet<>(MOST_RECENT_FIRST);
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder visited = new LongAdder();
+    private final ValueDictionary dictionary = new ValueDictionary();
+    private final Clock clock;
+
+    public MemoryMetaStore() {
+        this(Clock.systemUTC());
+    }
+
+    MemoryMetaStore(Clock clock) {
+        this.clock = clock;
+    }
 
     @Override
     public Package createPackage(PackageURL purl) {
-        return packages.computeIfAbsent(purl, (key) -> new Package(purl));
+        final var existing = packages.get(purl);
+        if (existing != null) {
+            return existing;
+        }
+        final var pkg = new IndexedPackage(dictionary.intern(purl), clock.instant());
+        final var stored = packages.computeIfAbsent(pkg.getPurl(), (key) -> index(pkg));
+        if (stored == pkg) {
+            packageCreated(pkg);
+        }
+        return stored;
+    }
+
+    /**
+     * Adds a previously persisted package, unless the package already exists.
+     *
+     * @return the package if it was added
+     */
+    protected Optional<Package> restore(PackageURL purl, Instant lastUpdated, Collection<Attribute<?>> attributes) {
+        final var pkg = new IndexedPackage(dictionary.intern(purl), lastUpdated);
+        attributes.forEach(pkg::add);
+        pkg.shareValues();
+        return (packages.computeIfAbsent(pkg.getPurl(), (key) -> index(pkg)) == pkg) ? Optional.of(pkg) : Optional.empty();
+    }
+
+    /**
+     * Adds an externally provided package as if it was newly created, unless it already exists.
+     *
+     * @return true if the package was added
+     */
+    boolean importPackage(PackageCodec.Record record) {
+        final var pkg = restore(record.purl, record.lastUpdated, record.attributes);
+        pkg.ifPresent(this::packageCreated);
+        return pkg.isPresent();
+    }
+
+    @Override
+    public Stream<Package> allPackages() {
+        return packages.values().stream().map(pkg -> pkg);
+    }
+
+    /**
+     * @return total number of packages visited by lookups, to verify lookups do not scan the store
+     */
+    long getVisited() {
+        return visited.sum();
+    }
+
+    private IndexedPackage index(IndexedPackage pkg) {
+        final var purl = pkg.getPurl();
+        versionsOf(purl).add(pkg);
+        types.add(notNull(purl.getType()), pkg);
+        namespaces.add(notNull(purl.getNamespace()), pkg);
+        names.add(notNull(purl.getName()), pkg);
+        versions.add(notNull(purl.getVersion()), pkg);
+        recent.add(pkg);
+        return pkg;
+    }
+
+    /**
+     * Notifies a new package was created.
+     */
+    protected void packageCreated(Package pkg) {
+    }
+
+    /**
+     * Notifies the attributes of a package were modified.
+     */
+    protected void packageUpdated(Package pkg) {
+    }
+
+    private Set<IndexedPackage> versionsOf(PackageURL purl) {
+        return index.computeIfAbsent(notNull(purl.getType()), (key) -> new ConcurrentHashMap<>())
+                .computeIfAbsent(notNull(purl.getNamespace()), (key) -> new ConcurrentHashMap<>())
+                .computeIfAbsent(notNull(purl.getName()), (key) -> ConcurrentHashMap.newKeySet());
     }
 
     @Override
@@ -32,17 +147,18 @@ public class MemoryMetaStore implements MetaStore {
 
     @Override
     public List<Package> latestScans(int limit) {
-        final var scans = new ArrayList<>(packages.values());
-        scans.sort(Comparator.comparing(Package::getLastUpdated));
-        Collections.reverse(scans);
-        return scans.subList(0, Math.min(limit, scans.size()));
+        return recent.stream()
+                .limit(limit)
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<Package> findPackageVersions(PackageURL purl) {
-        return packages.values().stream()
-                .filter(p -> p.getPurl().equals(purl))
-                .collect(Collectors.toList());
+        final List<Package> versions = List.copyOf(index.getOrDefault(notNull(purl.getType()), Map.of())
+                .getOrDefault(notNull(purl.getNamespace()), Map.of())
+                .getOrDefault(notNull(purl.getName()), Set.of()));
+        visited.add(versions.size());
+        return versions;
     }
 
     @Override
@@ -53,20 +169,105 @@ public class MemoryMetaStore implements MetaStore {
 
     @Override
     public List<Package> findPackages(String type, String namespace, String name, String version) {
-        return packages.values().stream()
-                .filter(pkg -> {
-                    final var purl = pkg.getPurl();
-                    return notNull(purl.getType()).contains(type)
-                            && notNull(purl.getNamespace()).contains(namespace)
-                            && notNull(purl.getName()).contains(name)
-                            && notNull(purl.getVersion()).contains(version);
-                })
-                .sorted((l, r) -> r.getLastUpdated().compareTo(l.getLastUpdated()))
-                .limit(100)
+        if (type.isEmpty() && namespace.isEmpty() && name.isEmpty() && version.isEmpty()) {
+            return latestScans(MAX_RESULTS);
+        }
+        final var selections = new ArrayList<Selection>();
+        select(selections, types, type, PackageURL::getType);
+        select(selections, namespaces, namespace, PackageURL::getNamespace);
+        select(selections, names, name, PackageURL::getName);
+        select(selections, versions, version, PackageURL::getVersion);
+        final var smallest = selections.stream().min(Comparator.comparingLong(Selection::count)).orElseThrow();
+        return mostRecent(smallest.candidates()
+                .peek(pkg -> visited.increment())
+                .filter(pkg -> selections.stream().allMatch(selection -> selection == smallest || selection.accepts(pkg))));
+    }
+
+    private void select(List<Selection> selections, NgramIndex<IndexedPackage> index, String fragment, Function<PackageURL, @NullOr String> component) {
+        if (!fragment.isEmpty()) {
+            selections.add(new Selection(index, index.matching(fragment), component));
+        }
+    }
+
+    /**
+     * Selects the most recently updated packages without sorting all candidates.
+     */
+    private List<Package> mostRecent(Stream<IndexedPackage> candidates) {
+        final var top = new PriorityQueue<>(MOST_RECENT_FIRST.reversed());
+        candidates.forEach(pkg -> {
+            top.add(pkg);
+            if (top.size() > MAX_RESULTS) {
+                top.poll();
+            }
+        });
+        return top.stream()
+                .sorted(MOST_RECENT_FIRST)
                 .collect(Collectors.toList());
     }
 
-    private String notNull(@NullOr String string) {
+    private static String notNull(@NullOr String string) {
         return string != null ? string : "";
     }
+
+    /**
+     * Purl component values matching a query fragment.
+     */
+    private static class Selection {
+        private final NgramIndex<IndexedPackage> index;
+        private final Set<String> values;
+        private final Function<PackageURL, @NullOr String> component;
+
+        Selection(NgramIndex<IndexedPackage> index, Set<String> values, Function<PackageURL, @NullOr String> component) {
+            this.index = index;
+            this.values = values;
+            this.component = component;
+        }
+
+        long count() {
+            return index.countOf(values);
+        }
+
+        Stream<IndexedPackage> candidates() {
+            return index.itemsOf(values);
+        }
+
+        boolean accepts(IndexedPackage pkg) {
+            return values.contains(notNull(component.apply(pkg.getPurl())));
+        }
+    }
+
+    /**
+     * Package that keeps its position in the recency index up-to-date.
+     */
+    private class IndexedPackage extends Package {
+        private final long sequence = MemoryMetaStore.this.sequence.incrementAndGet();
+
+        IndexedPackage(PackageURL purl, Instant lastUpdated) {
+            super(purl, lastUpdated);
+        }
+
+        @Override
+        public void setUpdated() {
+            synchronized (this) {
+                recent.remove(this);
+                super.setUpdated(clock.instant());
+                recent.add(this);
+            }
+            shareValues();
+            packageUpdated(this);
+        }
+
+        /**
+         * Replaces the values of attributes with few distinct values by shared instances.
+         */
+        void shareValues() {
+            getAttributes()
+                    .filter(attr -> SHARED_FIELDS.contains(attr.getField()))
+                    .forEach(this::share);
+        }
+
+        private <T> void share(Attribute<T> attribute) {
+            attribute.share(dictionary::intern);
+        }
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Incrementally maintained substring index.
+ * <p>
+ * Items are grouped by their (distinct) indexed text, and every substring of
+ * up to {@link #N} characters refers to the distinct texts holding it. As many
+ * items share the same text, the substrings are only registered once per
+ * distinct text. A fragment of up to N characters is resolved directly by its
+ * posting. A longer fragment is resolved by verifying the texts in the
+ * smallest posting of its N-grams.
+ */
+class NgramIndex<T> {
+    static final int N = 3;
+
+    private final Map<String, Set<T>> items = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the item under the text.
+     */
+    void add(String text, T item) {
+        items.computeIfAbsent(text, (key) -> {
+            ngramsOf(key).forEach(gram -> postings.computeIfAbsent(gram, (g) -> ConcurrentHashMap.newKeySet()).add(key));
+            return ConcurrentHashMap.newKeySet();
+        }).add(item);
+    }
+
+    private static Set<String> ngramsOf(String text) {
+        final var grams = new HashSet<String>();
+        for (int i = 0; i < text.length(); i++) {
+            for (int j = i + 1; j <= Math.min(i + N, text.length()); j++) {
+                grams.add(text.substring(i, j));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * @param fragment non-empty query fragment
+     * @return all indexed texts containing the fragment
+     */
+    Set<String> matching(String fragment) {
+        if (fragment.length() <= N) {
+            return Set.copyOf(postings.getOrDefault(fragment, Set.of()));
+        }
+        final var candidates = IntStream.rangeClosed(0, fragment.length() - N)
+                .mapToObj(i -> postings.getOrDefault(fragment.substring(i, i + N), Set.<String>of()))
+                .min(Comparator.comparingInt(Set::size))
+                .orElseThrow();
+        return candidates.stream()
+                .filter(text -> text.contains(fragment))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return number of items registered under the texts
+     */
+    long countOf(Set<String> texts) {
+        return texts.stream()
+                .mapToLong(text -> items.getOrDefault(text, Set.of()).size())
+                .sum();
+    }
+
+    /**
+     * @return all items registered under the texts
+     */
+    Stream<T> itemsOf(Set<String> texts) {
+        return texts.stream()
+                .flatMap(text -> items.getOrDefault(text, Set.of()).stream());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.registry.Attribute;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Package;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Binary encoding of the persistent state of a package.
+ * <p>
+ * A record holds the purl, the modification timestamp, and the value, score,
+ * alternative value and alternative score of every attribute.
+ */
+final class PackageCodec {
+    private static final Field[] FIELDS = Field.values();
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte URI_VALUE = 2;
+    private static final byte LIST_VALUE = 3;
+
+    private PackageCodec() {
+    }
+
+    static byte[] encode(Package pkg) {
+        try {
+            final var bytes = new ByteArrayOutputStream(256);
+            final var out = new DataOutputStream(bytes);
+            writeString(out, pkg.getPurl().canonicalize());
+            final var updated = pkg.getLastUpdated();
+            out.writeLong(updated.getEpochSecond());
+            out.writeInt(updated.getNano());
+            final var attributes = pkg.getAttributes().collect(Collectors.toList());
+            out.writeByte(attributes.size());
+            for (var attr : attributes) {
+                out.writeByte(attr.getField().ordinal());
+                out.writeInt(attr.getScore());
+                writeValue(out, attr.getValue().orElse(null));
+                out.writeInt(attr.getAltScore());
+                writeValue(out, attr.getAltValue().orElse(null));
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes only the purl of an encoded package.
+     */
+    static PackageURL decodePurl(ByteBuffer buffer) {
+        return toPurl(readString(buffer));
+    }
+
+    static Record decode(ByteBuffer buffer) {
+        final var purl = decodePurl(buffer);
+        final var updated = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        final int count = buffer.get();
+        final var attributes = new ArrayList<Attribute<?>>(count);
+        for (int i = 0; i < count; i++) {
+            final var field = FIELDS[buffer.get()];
+            final var score = buffer.getInt();
+            final var value = readValue(buffer);
+            final var altScore = buffer.getInt();
+            final var altValue = readValue(buffer);
+            attributes.add(new Attribute<>(field, score, value, altScore, altValue));
+        }
+        return new Record(purl, updated, attributes);
+    }
+
+    private static void writeValue(DataOutputStream out, @NullOr Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_VALUE);
+        } else if (value instanceof String) {
+            out.writeByte(STRING_VALUE);
+            writeString(out, (String) value);
+        } else if (value instanceof URI) {
+            out.writeByte(URI_VALUE);
+            writeString(out, value.toString());
+        } else if (value instanceof List) {
+            final var list = (List<?>) value;
+            out.writeByte(LIST_VALUE);
+            out.writeInt(list.size());
+            for (var item : list) {
+                writeString(out, String.valueOf(item));
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot persist a value of type " + value.getClass());
+        }
+    }
+
+    private static @NullOr Object readValue(ByteBuffer buffer) {
+        final var tag = buffer.get();
+        switch (tag) {
+            case NULL_VALUE:
+                return null;
+            case STRING_VALUE:
+                return readString(buffer);
+            case URI_VALUE:
+                return URI.create(readString(buffer));
+            case LIST_VALUE:
+                final var size = buffer.getInt();
+                final var list = new ArrayList<String>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readString(buffer));
+                }
+                return list;
+            default:
+                throw new IllegalArgumentException("Unknown value type " + tag);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        final var bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static PackageURL toPurl(String purl) {
+        try {
+            return new PackageURL(purl);
+        } catch (MalformedPackageURLException e) {
+            throw new IllegalArgumentException("Persisted package URL is malformed: " + purl, e);
+        }
+    }
+
+    /**
+     * Decoded package state.
+     */
+    static class Record {
+        final PackageURL purl;
+        final Instant lastUpdated;
+        final List<Attribute<?>> attributes;
+
+        Record(PackageURL purl, Instant lastUpdated, List<Attribute<?>> attributes) {
+            this.purl = purl;
+            this.lastUpdated = lastUpdated;
+            this.attributes = attributes;
+        }
+    }
+}
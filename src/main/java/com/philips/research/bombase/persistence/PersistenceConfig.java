@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.meta.TaskJournal;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Files;
+
+/**
+ * Selects the package store and task journal implementations.
+ */
+@Configuration
+public class PersistenceConfig {
+    /**
+     * @return disk-backed store if a store directory is configured, else an in-memory store
+     */
+    @Bean
+    public MemoryMetaStore metaStore(ConfigProperties properties) {
+        final var directory = properties.getStoreDirectory();
+        final var store = (directory != null) ? new LogMetaStore(directory) : new MemoryMetaStore();
+        final var snapshot = properties.getSnapshotFile();
+        if (properties.isRestoreSnapshot() && snapshot != null && Files.exists(snapshot)) {
+            new StoreSnapshot(store).restore(snapshot);
+        }
+        return store;
+    }
+
+    /**
+     * @return disk-backed journal if a journal directory is configured, else no journal
+     */
+    @Bean
+    public TaskJournal taskJournal(ConfigProperties properties) {
+        final var directory = properties.getTaskJournalDirectory();
+        return (directory != null) ? new FileTaskJournal(directory) : TaskJournal.NONE;
+    }
+}
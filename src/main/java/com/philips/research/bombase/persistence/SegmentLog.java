@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of records in memory-mapped segment files.
+ * <p>
+ * Every record is stored as its length, a CRC32 checksum and the payload.
+ * Segments are pre-allocated (and therefore zero-filled), so a zero length
+ * marks the end of the written part of a segment. Appends always go to a new
+ * segment after opening the log, which leaves all existing segments sealed.
+ * A record location combines the segment number and the offset in a long.
+ */
+class SegmentLog {
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentLog.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.log");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Integer, Path> segments = new ConcurrentSkipListMap<>();
+    private @NullOr MappedByteBuffer active;
+    private int activeSegment;
+
+    SegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                files.forEach(file -> {
+                    final var matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        segments.put(Integer.parseInt(matcher.group(1)), file);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the log in " + directory, e);
+        }
+        activeSegment = segments.isEmpty() ? 0 : segments.lastKey();
+        LOG.info("Opened log with {} segments in {}", segments.size(), directory);
+    }
+
+    static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static long locationOf(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    /**
+     * Reads all valid records in order of writing.
+     */
+    void replay(RecordConsumer consumer) {
+        segments.forEach((segment, file) -> {
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                replay(segment, buffer, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read log segment " + file, e);
+            }
+        });
+    }
+
+    private void replay(int segment, ByteBuffer buffer, RecordConsumer consumer) {
+        while (buffer.remaining() >= HEADER_SIZE) {
+            final var offset = buffer.position();
+            final var length = buffer.getInt();
+            final var checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            final var payload = buffer.slice().limit(length);
+            if (checksumOf(payload.duplicate()) != checksum) {
+                LOG.warn("Ignoring corrupt tail of log segment {} from offset {}", segment, offset);
+                break;
+            }
+            consumer.accept(locationOf(segment, offset), payload);
+            buffer.position(offset + HEADER_SIZE + length);
+        }
+    }
+
+    /**
+     * Appends a record to the active segment.
+     *
+     * @return location of the record
+     */
+    synchronized long append(byte[] payload) {
+        final var size = HEADER_SIZE + payload.length;
+        if (active == null || active.remaining() < size) {
+            roll(size);
+        }
+        //noinspection ConstantConditions
+        final var offset = active.position();
+        final var crc = new CRC32();
+        crc.update(payload);
+        active.putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload);
+        return locationOf(activeSegment, offset);
+    }
+
+    private void roll(int minimumSize) {
+        if (active != null) {
+            active.force();
+        }
+        activeSegment++;
+        final var file = directory.resolve(String.format("segment-%06d.log", activeSegment));
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, minimumSize + HEADER_SIZE));
+            segments.put(activeSegment, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create log segment " + file, e);
+        }
+    }
+
+    /**
+     * @return all segments that no longer receive appends
+     */
+    synchronized Set<Integer> sealedSegments() {
+        final var current = (active != null) ? activeSegment : -1;
+        return segments.keySet().stream()
+                .filter(segment -> segment != current)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Removes a sealed segment from disk.
+     */
+    void delete(int segment) {
+        final var file = segments.remove(segment);
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+            LOG.info("Removed log segment {}", file);
+        } catch (IOException e) {
+            LOG.warn("Failed to remove log segment {}", file, e);
+        }
+    }
+
+    /**
+     * Writes all appended records through to disk.
+     */
+    synchronized void flush() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    private static int checksumOf(ByteBuffer payload) {
+        final var crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        /**
+         * @param location location of the record in the log
+         * @param payload  (read-only) record contents
+         */
+        void accept(long location, ByteBuffer payload);
+    }
+}
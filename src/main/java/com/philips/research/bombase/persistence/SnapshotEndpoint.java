@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.philips.research.bombase.ConfigProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to save the package store to (or restore it from) the configured snapshot file.
+ * <p>
+ * The endpoint writes large files and merges packages into the store, so it
+ * is disabled unless explicitly enabled, and it is not exposed over the web
+ * by default.
+ */
+@Component
+@Endpoint(id = "snapshot", enableByDefault = false)
+public class SnapshotEndpoint {
+    static final String SAVE = "save";
+    static final String RESTORE = "restore";
+
+    private final StoreSnapshot snapshot;
+    private final ConfigProperties properties;
+
+    SnapshotEndpoint(MemoryMetaStore store, ConfigProperties properties) {
+        this.snapshot = new StoreSnapshot(store);
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        final var file = snapshotFile();
+        return Map.of("file", file.toString(),
+                "exists", Files.exists(file));
+    }
+
+    @WriteOperation
+    public Map<String, Object> execute(@Selector String action) {
+        final var file = snapshotFile();
+        final var start = System.currentTimeMillis();
+        final int count;
+        switch (action) {
+            case SAVE:
+                count = snapshot.save(file);
+                break;
+            case RESTORE:
+                count = snapshot.restore(file);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown snapshot action '" + action + "'");
+        }
+        return Map.of("file", file.toString(),
+                "packages", count,
+                "millis", System.currentTimeMillis() - start);
+    }
+
+    private Path snapshotFile() {
+        final var file = properties.getSnapshotFile();
+        if (file == null) {
+            throw new IllegalStateException("No snapshot file configured");
+        }
+        return file;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.philips.research.bombase.core.meta.registry.Package;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Versioned binary snapshot of the full content of a package store.
+ * <p>
+ * The file consists of a header, independently deflated chunks of encoded
+ * packages, a chunk directory and the offset of this directory. Chunks are
+ * decoded in parallel while restoring.
+ */
+class StoreSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(StoreSnapshot.class);
+    private static final int MAGIC = 0x424f4d53; // "BOMS"
+    private static final int VERSION = 1;
+    private static final int PACKAGES_PER_CHUNK = 10_000;
+
+    private final MemoryMetaStore store;
+
+    StoreSnapshot(MemoryMetaStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Writes all packages of the store to a snapshot file.
+     *
+     * @return number of packages written
+     */
+    int save(Path file) {
+        final var start = System.currentTimeMillis();
+        final var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        final var chunks = new ArrayList<Chunk>();
+        var count = 0;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                long offset = 2 * Integer.BYTES;
+                final Iterator<Package> packages = store.allPackages().iterator();
+                while (packages.hasNext()) {
+                    final var chunk = encodeChunk(packages);
+                    out.write(chunk.data);
+                    chunks.add(new Chunk(offset, chunk.data.length, chunk.count));
+                    offset += chunk.data.length;
+                    count += chunk.count;
+                }
+                out.writeInt(chunks.size());
+                for (var chunk : chunks) {
+                    out.writeLong(chunk.offset);
+                    out.writeInt(chunk.length);
+                    out.writeInt(chunk.count);
+                }
+                out.writeLong(offset);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + file, e);
+        }
+        LOG.info("Wrote snapshot of {} packages to {} in {} ms", count, file, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    private EncodedChunk encodeChunk(Iterator<Package> packages) throws IOException {
+        final var bytes = new ByteArrayOutputStream(1024 * 1024);
+        final var out = new DataOutputStream(bytes);
+        var count = 0;
+        while (count < PACKAGES_PER_CHUNK && packages.hasNext()) {
+            final var payload = PackageCodec.encode(packages.next());
+            out.writeInt(payload.length);
+            out.write(payload);
+            count++;
+        }
+        out.flush();
+        return new EncodedChunk(deflate(bytes.toByteArray()), count);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        final var deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final var out = new ByteArrayOutputStream(data.length / 4 + 64);
+            final var buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Adds all packages from a snapshot file that do not yet exist in the store.
+     *
+     * @return number of packages added
+     */
+    int restore(Path file) {
+        final var start = System.currentTimeMillis();
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 2 * Integer.BYTES + Long.BYTES) {
+                throw new IllegalArgumentException(file + " is not a snapshot file");
+            }
+            final var header = map(channel, 0, 2 * Integer.BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a snapshot file");
+            }
+            final var version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version " + version + " in " + file);
+            }
+            final var chunks = readDirectory(channel);
+            final var added = new AtomicInteger();
+            chunks.parallelStream().forEach(chunk -> {
+                final var data = map(channel, chunk.offset, chunk.length);
+                added.addAndGet(decodeChunk(inflate(data), chunk.count));
+            });
+            LOG.info("Restored {} packages from {} in {} ms", added.get(), file, System.currentTimeMillis() - start);
+            return added.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Reads the chunk directory, which is located by the offset at the end of the file.
+     */
+    private List<Chunk> readDirectory(FileChannel channel) throws IOException {
+        final var end = channel.size() - Long.BYTES;
+        final var offset = map(channel, end, Long.BYTES).getLong();
+        final var directory = map(channel, offset, end - offset);
+        final var count = directory.getInt();
+        final var chunks = new ArrayList<Chunk>(count);
+        for (int i = 0; i < count; i++) {
+            chunks.add(new Chunk(directory.getLong(), directory.getInt(), directory.getInt()));
+        }
+        return chunks;
+    }
+
+    /**
+     * Maps a region of the file, so files beyond the 2GB limit of a single mapping can be read.
+     */
+    private static ByteBuffer map(FileChannel channel, long position, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int decodeChunk(ByteBuffer data, int count) {
+        var added = 0;
+        for (int i = 0; i < count; i++) {
+            final var length = data.getInt();
+            final var payload = data.slice().limit(length);
+            data.position(data.position() + length);
+            if (store.importPackage(PackageCodec.decode(payload))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private static ByteBuffer inflate(ByteBuffer data) {
+        final var inflater = new Inflater();
+        try {
+            final var input = new byte[data.remaining()];
+            data.get(input);
+            inflater.setInput(input);
+            final var out = new ByteArrayOutputStream(input.length * 4);
+            final var buffer = new byte[64 * 1024];
+            while (!inflater.finished()) {
+                final var length = inflater.inflate(buffer);
+                if (length == 0 && inflater.needsInput()) {
+                    throw new IllegalArgumentException("Snapshot chunk is truncated");
+                }
+                out.write(buffer, 0, length);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Snapshot chunk is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static class Chunk {
+        final long offset;
+        final int length;
+        final int count;
+
+        Chunk(long offset, int length, int count) {
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+        }
+    }
+
+    private static class EncodedChunk {
+        final byte[] data;
+        final int count;
+
+        EncodedChunk(byte[] data, int count) {
+            this.data = data;
+            this.count = count;
+        }
+    }
+}
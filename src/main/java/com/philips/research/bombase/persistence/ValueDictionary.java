@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Shared instances of values that repeat across many packages.
+ * <p>
+ * Every distinct value is held once, and all packages refer to that single
+ * instance. The dictionary retains every value it ever interned, including
+ * values that packages no longer refer to. It should therefore only be used
+ * for values with few distinct instances, like licenses and the type of
+ * package URLs.
+ */
+class ValueDictionary {
+    private final Map<Object, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * @return shared instance of the value (as unmodifiable list for lists), or the value itself if it cannot be shared
+     */
+    @SuppressWarnings("unchecked")
+    <T> @NullOr T intern(@NullOr T value) {
+        if (value instanceof String) {
+            return (T) values.computeIfAbsent(value, (key) -> key);
+        }
+        if (value instanceof List) {
+            return (T) intern((List<?>) value);
+        }
+        return value;
+    }
+
+    private List<?> intern(List<?> list) {
+        final var existing = values.get(list);
+        if (existing != null) {
+            return (List<?>) existing;
+        }
+        final var copy = list.stream()
+                .map(this::intern)
+                .collect(Collectors.toUnmodifiableList());
+        return (List<?>) values.computeIfAbsent(copy, (key) -> key);
+    }
+
+    /**
+     * Rebuilds a package URL from a shared type.
+     * The namespace is not shared, because the package URL replaces it by a
+     * validated copy, and the (mostly unique) name and version are not shared.
+     *
+     * @return equal package URL
+     */
+    PackageURL intern(PackageURL purl) {
+        try {
+            final var qualifiers = purl.getQualifiers();
+            final var shared = new PackageURL(intern(purl.getType()), purl.getNamespace(),
+                    purl.getName(), purl.getVersion(),
+                    (qualifiers != null) ? new TreeMap<>(qualifiers) : null, purl.getSubpath());
+            return shared.equals(purl) ? shared : purl;
+        } catch (MalformedPackageURLException e) {
+            return purl;
+        }
+    }
+
+    /**
+     * @return number of distinct values
+     */
+    int size() {
+        return values.size();
+    }
+}
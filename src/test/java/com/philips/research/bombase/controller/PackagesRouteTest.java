@@ -25,16 +25,20 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = {PackagesRoute.class, JacksonConfiguration.class})
@@ -95,6 +99,38 @@ class PackagesRouteTest {
         verify(service).createPackage(purl);
     }
 
+    @Test
+    void awaitsPackageHarvest() throws Exception {
+        final var attributeDto = new AttributeDto();
+        attributeDto.value = VALUE;
+        when(service.awaitAttributes(new PackageURL(PURL), Duration.ofMillis(2000)))
+                .thenReturn(CompletableFuture.completedFuture(Map.of(KEY, attributeDto)));
+
+        final var result = mvc.perform(get(URL_PACKAGE, encode(PURL)).queryParam("wait", "2000ms"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.purl").value(PURL))
+                .andExpect(jsonPath("$.attributes." + KEY).value(VALUE));
+    }
+
+    @Test
+    void limitsWaitingTime() throws Exception {
+        when(service.awaitAttributes(any(), any())).thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        mvc.perform(get(URL_PACKAGE, encode(PURL)).queryParam("wait", "1h"));
+
+        verify(service).awaitAttributes(new PackageURL(PURL), WaitParameter.MAX_WAIT);
+    }
+
+    @Test
+    void badRequest_invalidWaitingTime() throws Exception {
+        mvc.perform(get(URL_PACKAGE, encode(PURL)).queryParam("wait", "soon"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void listsLatestScans() throws Exception {
         when(service.latestScans()).thenReturn(List.of(packageDto));
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.MetaService;
+import com.philips.research.bombase.core.MetaService.UpdateDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = {UpdatesRoute.class, JacksonConfiguration.class})
+@AutoConfigureMockMvc
+@ExtendWith({SpringExtension.class, MockitoExtension.class})
+class UpdatesRouteTest {
+    private static final String URL_UPDATES = "/updates";
+    private static final String PURL = "pkg:npm/%40scope/name@1.0";
+    private static final String OTHER = "pkg:maven/group/name@1.0";
+
+    private final MetaService.Subscription subscription = mock(MetaService.Subscription.class);
+
+    @Autowired
+    private MockMvc mvc;
+    @MockBean
+    private MetaService service;
+
+    private static String encode(String string) {
+        return URLEncoder.encode(string, StandardCharsets.UTF_8);
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        Mockito.reset(service);
+        when(service.subscribe(any(), any(), any())).thenReturn(subscription);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamsUpdates() throws Exception {
+        final var result = mvc.perform(get(URL_UPDATES))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        final ArgumentCaptor<Consumer<UpdateDto>> consumer = ArgumentCaptor.forClass(Consumer.class);
+        verify(service).subscribe(any(), consumer.capture(), any());
+
+        final var update = new UpdateDto();
+        update.purl = new PackageURL(PURL);
+        update.fields = List.of("title");
+        consumer.getValue().accept(update);
+
+        final var content = result.getResponse().getContentAsString();
+        assertThat(content).contains("event:update");
+        assertThat(content).contains("\"purl\":\"" + PURL + "\"");
+        assertThat(content).contains("\"id\":\"" + encode(encode(PURL)) + "\"");
+        assertThat(content).contains("\"fields\":[\"title\"]");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filtersByTypeAndPackage() throws Exception {
+        mvc.perform(get(URL_UPDATES)
+                .queryParam("type", "pypi")
+                .queryParam("purl", encode(PURL)));
+        final ArgumentCaptor<Predicate<PackageURL>> filter = ArgumentCaptor.forClass(Predicate.class);
+        verify(service).subscribe(filter.capture(), any(), any());
+
+        assertThat(filter.getValue().test(new PackageURL(PURL))).isTrue();
+        assertThat(filter.getValue().test(new PackageURL("pkg:pypi/name@1.0"))).isTrue();
+        assertThat(filter.getValue().test(new PackageURL(OTHER))).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void selectsAllPackagesByDefault() throws Exception {
+        mvc.perform(get(URL_UPDATES));
+        final ArgumentCaptor<Predicate<PackageURL>> filter = ArgumentCaptor.forClass(Predicate.class);
+        verify(service).subscribe(filter.capture(), any(), any());
+
+        assertThat(filter.getValue().test(new PackageURL(OTHER))).isTrue();
+    }
+
+    @Test
+    void badRequest_invalidPackageUrl() throws Exception {
+        mvc.perform(get(URL_UPDATES).queryParam("purl", "not-a-purl"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -180,6 +180,41 @@ class ClearlyDefinedClientTest {
         assertThat(request.getPath()).contains(TYPE + "/-/" + NAME);
     }
 
+    @Test
+    void getsMetadataOfMultiplePackagesInBulk() throws Exception {
+        final var other = new PackageURL(TYPE, null, NAME, VERSION, null, null);
+        final var undefined = new PackageURL(TYPE, null, "Undefined", VERSION, null, null);
+        final var coordinates = String.format("%s/%s/%s/%s/%s", TYPE, TYPE, NAMESPACE, NAME, VERSION);
+        final var otherCoordinates = String.format("%s/%s/-/%s/%s", TYPE, TYPE, NAME, VERSION);
+        final var undefinedCoordinates = String.format("%s/%s/-/%s/%s", TYPE, TYPE, "Undefined", VERSION);
+        mockServer.enqueue(new MockResponse().setBody(new JSONObject()
+                .put(coordinates.toLowerCase(), new JSONObject()
+                        .put("described", new JSONObject())
+                        .put("licensed", new JSONObject()
+                                .put("declared", DECLARED_LICENSE))
+                        .put("scores", new JSONObject()
+                                .put("effective", 100)))
+                .put(otherCoordinates, new JSONObject()
+                        .put("described", new JSONObject())
+                        .put("licensed", new JSONObject())
+                        .put("scores", new JSONObject()
+                                .put("effective", 100)))
+                .put(undefinedCoordinates, new JSONObject()
+                        .put("scores", new JSONObject()
+                                .put("effective", 0)))
+                .toString()));
+
+        final var metadata = client.getPackagesMetadata(List.of(PURL, other, undefined));
+
+        final var request = mockServer.takeRequest();
+        assertThat(request.getMethod()).isEqualTo("POST");
+        assertThat(request.getPath()).isEqualTo("/definitions");
+        assertThat(new JSONArray(request.getBody().readUtf8()).toList())
+                .containsExactly(coordinates, otherCoordinates, undefinedCoordinates);
+        assertThat(metadata).containsOnlyKeys(PURL, other);
+        assertThat(metadata.get(PURL).getDeclaredLicense()).contains(DECLARED_LICENSE);
+    }
+
     @Test
     void throws_serverNotReachable() {
         var serverlessClient = new ClearlyDefinedClient(URI.create("http://localhost:1234"));
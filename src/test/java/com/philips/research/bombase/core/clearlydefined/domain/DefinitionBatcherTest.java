@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.clearlydefined.domain;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.clearlydefined.ClearlyDefinedException;
+import com.philips.research.bombase.core.meta.PackageMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class DefinitionBatcherTest {
+    private static final PackageURL PURL = createPurl("pkg:npm/name@1.0");
+    private static final PackageURL OTHER = createPurl("pkg:npm/other@1.0");
+    private static final Duration WINDOW = Duration.ofMillis(50);
+
+    private final PackageMetadata metadata = mock(PackageMetadata.class);
+    private final List<List<PackageURL>> requests = new CopyOnWriteArrayList<>();
+    private final Function<Collection<PackageURL>, Map<PackageURL, PackageMetadata>> bulk = purls -> {
+        requests.add(new ArrayList<>(purls));
+        return Map.of(PURL, metadata);
+    };
+    private final List<PackageURL> singles = new CopyOnWriteArrayList<>();
+    private final Function<PackageURL, Optional<PackageMetadata>> single = purl -> {
+        singles.add(purl);
+        if (!purl.equals(PURL)) {
+            throw new ClearlyDefinedException("ClearlyDefined server responded with status 400", false);
+        }
+        return Optional.of(metadata);
+    };
+
+    static PackageURL createPurl(String purl) {
+        try {
+            return new PackageURL(purl);
+        } catch (MalformedPackageURLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void readsSinglePackageAfterWindow() {
+        final var batcher = new DefinitionBatcher(bulk, single, 10, WINDOW);
+
+        assertThat(batcher.read(PURL)).contains(metadata);
+        assertThat(requests).containsExactly(List.of(PURL));
+    }
+
+    @Test
+    void combinesConcurrentReads() {
+        final var batcher = new DefinitionBatcher(bulk, single, 10, Duration.ofSeconds(1));
+
+        final var first = CompletableFuture.supplyAsync(() -> batcher.read(PURL));
+        final var second = CompletableFuture.supplyAsync(() -> batcher.read(OTHER));
+        final var third = CompletableFuture.supplyAsync(() -> batcher.read(PURL));
+
+        assertThat(first.join()).contains(metadata);
+        assertThat(second.join()).isEmpty();
+        assertThat(third.join()).contains(metadata);
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0)).containsExactlyInAnyOrder(PURL, OTHER);
+    }
+
+    @Test
+    void sendsFullBatchImmediately() {
+        final var batcher = new DefinitionBatcher(bulk, single, 2, Duration.ofHours(1));
+
+        final var first = CompletableFuture.supplyAsync(() -> batcher.read(PURL));
+        final var second = batcher.read(OTHER);
+
+        assertThat(second).isEmpty();
+        assertThat(first.join()).contains(metadata);
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void throwsForAllReads_bulkRequestFails() {
+        final var batcher = new DefinitionBatcher(purls -> {
+            throw new ClearlyDefinedException("Not reachable", true);
+        }, single, 10, WINDOW);
+
+        assertThatThrownBy(() -> batcher.read(PURL))
+                .isInstanceOf(ClearlyDefinedException.class);
+    }
+
+    @Test
+    void readsPackagesOnTheirOwn_bulkRequestRejected() {
+        final var batcher = new DefinitionBatcher(purls -> {
+            requests.add(new ArrayList<>(purls));
+            throw new ClearlyDefinedException("ClearlyDefined server responded with status 400", false);
+        }, single, 2, Duration.ofHours(1));
+
+        final var first = CompletableFuture.supplyAsync(() -> batcher.read(PURL));
+        assertThatThrownBy(() -> batcher.read(OTHER))
+                .isInstanceOf(ClearlyDefinedException.class);
+
+        assertThat(first.join()).contains(metadata);
+        assertThat(requests).hasSize(1);
+        assertThat(singles).containsExactlyInAnyOrder(PURL, OTHER);
+    }
+
+    @Test
+    void readsNoPackagesOnTheirOwn_bulkRequestFailsTemporarily() {
+        final var batcher = new DefinitionBatcher(purls -> {
+            throw new ClearlyDefinedException("ClearlyDefined server responded with status 503", true);
+        }, single, 10, WINDOW);
+
+        assertThatThrownBy(() -> batcher.read(PURL))
+                .isInstanceOf(ClearlyDefinedException.class);
+        assertThat(singles).isEmpty();
+    }
+
+    @Test
+    void releasesAllReads_bulkRequestErrors() {
+        final var batcher = new DefinitionBatcher(purls -> {
+            throw new OutOfMemoryError("Simulated");
+        }, single, 10, WINDOW);
+
+        assertThatThrownBy(() -> batcher.read(PURL))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
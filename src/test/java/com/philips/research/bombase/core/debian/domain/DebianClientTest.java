@@ -9,6 +9,7 @@ import com.github.packageurl.MalformedPackageURLException;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.meta.PackageMetadata;
 import com.philips.research.bombase.core.debian.DebianException;
+import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import pl.tlinkowski.annotation.basic.NullOr;
@@ -23,9 +24,13 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -69,17 +74,21 @@ class DebianClientTest {
     }
 
     void enqueueSeriesMock() throws JSONException {
+        mockServer.enqueue(seriesResponse());
+    }
+
+    MockResponse seriesResponse() throws JSONException {
         List<JSONObject> entries = new ArrayList<JSONObject>();
         entries.add(new JSONObject()
             .put("self_link", API + "ubuntu/noble")
             .put("datereleased", "2024-04-25T16:04:56.109664+00:00")
             .put("active", true)
             .put("name", SERIE_NAME));
-        mockServer.enqueue(new MockResponse().setBody(new JSONObject()
+        return new MockResponse().setBody(new JSONObject()
                 .put("start", 0)
                 .put("total_size", 1)
                 .put("entries", new JSONArray(entries))
-                .toString()));
+                .toString());
     }
 
     void enqueueSourcePackagesMock() throws JSONException {
@@ -132,6 +141,13 @@ class DebianClientTest {
             assertThat(client.getPackageMetadata(PURL)).isEmpty();
         }
 
+        @Test
+        void noSeriesFound() {
+            mockServer.enqueue(new MockResponse().setResponseCode(404));
+
+            assertThat(client.getPackageMetadata(PURL)).isEmpty();
+        }
+
         @Test
         void noSourcePackagesAnswer() throws Exception {
             enqueueSeriesMock();
@@ -192,4 +208,63 @@ class DebianClientTest {
             assertThat(definition.getDownloadLocation()).contains(URI.create(DOWNLOAD_URL));
         }
     }
+
+    @Nested
+    class CachedLookups {
+        private final AtomicLong now = new AtomicLong();
+        private final DebianClient cachingClient = new DebianClient(URI.create("http://localhost:" + PORT),
+                new OkHttpClient(), Duration.ofHours(1), 100, now::get);
+
+        @BeforeEach
+        void setUp() throws JSONException {
+            enqueueSeriesMock();
+            enqueueSourcePackagesMock();
+            enqueueSourceMock();
+            enqueueProjectMock();
+            cachingClient.getPackageMetadata(PURL);
+        }
+
+        @Test
+        void onlyReadsProject_knownSource() throws Exception {
+            enqueueProjectMock();
+
+            final var definition = cachingClient.getPackageMetadata(PURL).orElseThrow();
+
+            assertThat(definition.getTitle()).contains(PROJECT_NAME);
+            assertThat(mockServer.getRequestCount()).isEqualTo(5);
+            for (int i = 0; i < 4; i++) {
+                mockServer.takeRequest();
+            }
+            assertThat(mockServer.takeRequest().getPath()).contains(PROJECT_NAME);
+        }
+
+        @Test
+        void readsSeriesAgain_seriesExpired() throws Exception {
+            now.addAndGet(Duration.ofHours(1).toMillis());
+            enqueueSeriesMock();
+            enqueueProjectMock();
+
+            assertThat(cachingClient.getPackageMetadata(PURL)).isNotEmpty();
+
+            assertThat(mockServer.getRequestCount()).isEqualTo(6);
+        }
+
+        @Test
+        void usesPreviousSeries_whileSeriesIsRefreshed() throws Exception {
+            now.addAndGet(Duration.ofHours(1).toMillis());
+            mockServer.enqueue(seriesResponse().setHeadersDelay(500, TimeUnit.MILLISECONDS));
+            enqueueProjectMock();
+            enqueueProjectMock();
+            final var refreshing = CompletableFuture.supplyAsync(() -> cachingClient.getPackageMetadata(PURL));
+            while (mockServer.getRequestCount() < 5) {
+                Thread.sleep(1);
+            }
+
+            assertThat(cachingClient.getPackageMetadata(PURL)).isNotEmpty();
+
+            assertThat(refreshing).isNotDone();
+            assertThat(refreshing.get(5, TimeUnit.SECONDS)).isNotEmpty();
+            assertThat(mockServer.getRequestCount()).isEqualTo(7);
+        }
+    }
 }
@@ -5,6 +5,7 @@
 
 package com.philips.research.bombase.core.debian.domain;
 
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -12,7 +13,7 @@ import static org.mockito.Mockito.mock;
 
 class DebianHarvesterTest {
     private final DebianClient client = mock(DebianClient.class);
-    private final DebianHarvester harvester = new DebianHarvester(client);
+    private final DebianHarvester harvester = new DebianHarvester(client, NegativeCache.NONE);
 
     @Test
     void triggersForSupportedType() {
@@ -5,6 +5,7 @@
 
 package com.philips.research.bombase.core.maven.domain;
 
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -12,7 +13,7 @@ import static org.mockito.Mockito.mock;
 
 class MavenHarvesterTest {
     private final MavenClient client = mock(MavenClient.class);
-    private final MavenHarvester harvester = new MavenHarvester(client);
+    private final MavenHarvester harvester = new MavenHarvester(client, NegativeCache.NONE);
 
     @Test
     void triggersForSupportedType() {
@@ -6,6 +6,7 @@
 package com.philips.research.bombase.core.meta;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.BusinessException;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Package;
 import com.philips.research.bombase.core.meta.registry.PackageAttributeEditor;
@@ -15,6 +16,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,6 +24,7 @@ import java.util.Set;
 import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 class AbstractRepoHarvesterTest {
@@ -54,6 +57,10 @@ class AbstractRepoHarvesterTest {
             super(client);
         }
 
+        TestHarvester(Client client, NegativeCache unknown) {
+            super(client, unknown);
+        }
+
         @Override
         protected boolean isSupportedType(String type) {
             return type.equals(PURL.getType());
@@ -129,5 +136,59 @@ class AbstractRepoHarvesterTest {
 
             verifyNoInteractions(editor);
         }
+
+        @Test
+        void throwsUnavailable_sourceFails() {
+            when(client.read(PURL)).thenThrow(new BusinessException("Not reachable", true) {
+            });
+
+            assertThatThrownBy(() -> task.accept(editor))
+                    .isInstanceOf(SourceUnavailableException.class);
+        }
+
+        @Test
+        void throwsMetaException_sourceRejectsRequest() {
+            when(client.read(PURL)).thenThrow(new BusinessException("Responded with status 403", false) {
+            });
+
+            assertThatThrownBy(() -> task.accept(editor))
+                    .isInstanceOf(MetaException.class)
+                    .isNotInstanceOf(SourceUnavailableException.class);
+        }
+
+        @Test
+        void throwsMetaException_malformedResponse() {
+            when(client.read(PURL)).thenThrow(new IllegalArgumentException("JSON formatting error"));
+
+            assertThatThrownBy(() -> task.accept(editor))
+                    .isInstanceOf(MetaException.class)
+                    .isNotInstanceOf(SourceUnavailableException.class);
+        }
+    }
+
+    @Nested
+    class UnknownPackages {
+        private final NegativeCache unknown = new NegativeCache(Duration.ofHours(1), 10, () -> 0L);
+        private final AbstractRepoHarvester remembering = new TestHarvester(client, unknown);
+        private final PackageAttributeEditor editor = new PackageAttributeEditor(new Package(PURL));
+
+        @Test
+        void skipsHarvest_recentlyNotFound() {
+            when(client.read(PURL)).thenReturn(Optional.empty());
+
+            remembering.onUpdated(PURL, Set.of(), Map.of()).orElseThrow().accept(editor);
+
+            assertThat(remembering.onUpdated(PURL, Set.of(), Map.of())).isEmpty();
+            verify(client, times(1)).read(PURL);
+        }
+
+        @Test
+        void harvestsAgain_metadataFound() {
+            when(client.read(PURL)).thenReturn(Optional.of(mock(PackageMetadata.class)));
+
+            remembering.onUpdated(PURL, Set.of(), Map.of()).orElseThrow().accept(editor);
+
+            assertThat(remembering.onUpdated(PURL, Set.of(), Map.of())).isNotEmpty();
+        }
     }
 }
@@ -15,7 +15,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -89,6 +92,40 @@ class MetaInteractorTest {
             assertThat(attr.value).isEqualTo(TITLE);
         }
 
+        @Test
+        void awaitsPackageDetails_noHarvestInFlight() {
+            editor.update(Field.TITLE, Trust.TRUTH, TITLE);
+
+            final var values = interactor.awaitAttributes(PURL, Duration.ofSeconds(1));
+
+            assertThat(values).isCompleted();
+            assertThat(values.join().get(Field.TITLE.name().toLowerCase()).value).isEqualTo(TITLE);
+        }
+
+        @Test
+        void awaitsPackageDetailsUntilDeadline_harvestInFlight() throws Exception {
+            //noinspection unchecked
+            when(listener.onUpdated(any(), any(), any())).thenReturn(Optional.of(mock(Consumer.class)));
+            when(listener.getInterest()).thenReturn(Interest.any());
+            registry.addListener(listener);
+            registry.edit(PURL, editor -> editor.update(Field.TITLE, Trust.TRUTH, TITLE));
+
+            final var values = interactor.awaitAttributes(PURL, Duration.ofMillis(10));
+
+            assertThat(values.get(1, TimeUnit.SECONDS)).containsKey(Field.TITLE.name().toLowerCase());
+        }
+
+        @Test
+        void createsUnknownPackage_awaitPackageDetails() {
+            when(store.findPackage(PURL)).thenReturn(Optional.empty(), Optional.of(pkg));
+            when(store.createPackage(PURL)).thenReturn(pkg);
+
+            final var values = interactor.awaitAttributes(PURL, Duration.ofSeconds(1));
+
+            verify(store).createPackage(PURL);
+            assertThat(values).isCompleted();
+        }
+
         @Test
         void throws_queryUnknownPackage() {
             when(store.findPackage(PURL)).thenReturn(Optional.empty());
@@ -103,6 +140,7 @@ class MetaInteractorTest {
     class UpdatingPackageValues {
         @BeforeEach
         void beforeEach() {
+            when(listener.getInterest()).thenReturn(Interest.any());
             registry.addListener(listener);
             when(store.findPackage(PURL)).thenReturn(Optional.of(pkg));
         }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta;
+
+import com.github.packageurl.PackageURL;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NegativeCacheTest {
+    private static final String SOURCE = "Source";
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final int CAPACITY = 2;
+    private static final PackageURL PURL = toPurl("pkg:npm/name@1.0");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final NegativeCache cache = new NegativeCache(TTL, CAPACITY, clock::get);
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Test
+    void remembersMissingPackagePerSource() {
+        cache.missing(SOURCE, PURL);
+
+        assertThat(cache.isMissing(SOURCE, PURL)).isTrue();
+        assertThat(cache.isMissing("Other", PURL)).isFalse();
+        assertThat(cache.isMissing(SOURCE, toPurl("pkg:npm/name@2.0"))).isFalse();
+    }
+
+    @Test
+    void forgetsMissingPackage_expired() {
+        cache.missing(SOURCE, PURL);
+
+        clock.addAndGet(TTL.toMillis());
+
+        assertThat(cache.isMissing(SOURCE, PURL)).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void evictsFirstExpiringPackage_full() {
+        cache.missing(SOURCE, PURL);
+        clock.incrementAndGet();
+        cache.missing(SOURCE, toPurl("pkg:npm/other@1.0"));
+        cache.missing(SOURCE, toPurl("pkg:npm/third@1.0"));
+
+        assertThat(cache.size()).isEqualTo(CAPACITY);
+        assertThat(cache.isMissing(SOURCE, PURL)).isFalse();
+    }
+
+    @Test
+    void purgesExpiredPackages() {
+        cache.missing(SOURCE, PURL);
+        clock.addAndGet(TTL.toMillis());
+
+        cache.missing(SOURCE, toPurl("pkg:npm/other@1.0"));
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void remembersNothing_none() {
+        NegativeCache.NONE.missing(SOURCE, PURL);
+
+        assertThat(NegativeCache.NONE.isMissing(SOURCE, PURL)).isFalse();
+    }
+}
@@ -9,6 +9,11 @@ import com.philips.research.bombase.core.meta.MetaException;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -181,6 +186,33 @@ class AttributeTest {
         assertThat(field.getAltScore()).isEqualTo(HIGHER_TRUST.getScore());
     }
 
+    @Test
+    void revisesOnScoreAndAlternativeChanges() {
+        field.setValue(TRUST, VALUE);
+        final var initial = field.getRevision();
+
+        field.setValue(HIGHER_TRUST, VALUE);
+        final var scored = field.getRevision();
+        field.setValue(LOWER_TRUST, OTHER_VALUE);
+        final var contested = field.getRevision();
+
+        assertThat(scored).isNotEqualTo(initial);
+        assertThat(contested).isNotEqualTo(scored);
+    }
+
+    @Test
+    void keepsRevision_noChange() {
+        field.setValue(HIGHER_TRUST, VALUE);
+        field.setValue(LOWER_TRUST, OTHER_VALUE);
+        final var revision = field.getRevision();
+
+        field.setValue(HIGHER_TRUST, VALUE);
+        field.setValue(LOWER_TRUST, OTHER_VALUE);
+        field.setValue(Trust.MAYBE, "Ignored");
+
+        assertThat(field.getRevision()).isEqualTo(revision);
+    }
+
     @Test
     void ignoresEqualContestingValue() {
         field.setValue(HIGHER_TRUST, VALUE);
@@ -216,4 +248,30 @@ class AttributeTest {
                 .withNonnullFields("field")
                 .verify();
     }
+
+    @Test
+    void keepsValueConsistentWithScore_concurrentUpdates() throws Exception {
+        final var executor = Executors.newFixedThreadPool(8);
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 8; i++) {
+            final var trust = Trust.values()[1 + i % (Trust.values().length - 2)];
+            tasks.add(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    field.setValue(trust, trust.name());
+                }
+                return null;
+            });
+        }
+
+        for (var future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(field.getScore()).isEqualTo(Trust.CERTAIN.getScore());
+        assertThat(field.getValue()).contains(Trust.CERTAIN.name());
+        assertThat(field.getAltScore()).isLessThanOrEqualTo(field.getScore());
+        field.getAltValue().ifPresent(alt -> assertThat(alt).isEqualTo(Trust.of(field.getAltScore()).name()));
+    }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadTest {
+    private static final String LISTENER = "Listener";
+    private static final int LIMIT = 2;
+    private static final int CAPACITY = 1;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> dispatched = new ArrayList<>();
+    private final AtomicInteger executed = new AtomicInteger();
+    private final Runnable task = executed::incrementAndGet;
+    private final Bulkhead bulkhead = new Bulkhead(LISTENER, LIMIT, CAPACITY, TIMEOUT,
+            (priority, runnable) -> dispatched.add(runnable), clock::get);
+
+    @Test
+    void dispatchesTasksWithinLimit() {
+        assertThat(bulkhead.submit(Priority.CASCADE, task)).isTrue();
+        assertThat(bulkhead.submit(Priority.CASCADE, task)).isTrue();
+
+        assertThat(dispatched).hasSize(LIMIT);
+        assertThat(bulkhead.getActive()).isEqualTo(LIMIT);
+        assertThat(bulkhead.getWaiting()).isZero();
+    }
+
+    @Test
+    void queuesTasksBeyondLimit() {
+        fillLimit();
+
+        assertThat(bulkhead.submit(Priority.CASCADE, task)).isTrue();
+
+        assertThat(dispatched).hasSize(LIMIT);
+        assertThat(bulkhead.getWaiting()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsTasksWhenQueueIsFull() {
+        fillLimit();
+        bulkhead.submit(Priority.CASCADE, task);
+
+        assertThat(bulkhead.submit(Priority.CASCADE, task)).isFalse();
+    }
+
+    @Test
+    void dispatchesWaitingTaskWhenTaskCompletes() {
+        fillLimit();
+        bulkhead.submit(Priority.CASCADE, task);
+
+        dispatched.get(0).run();
+
+        assertThat(dispatched).hasSize(LIMIT + 1);
+        assertThat(bulkhead.getActive()).isEqualTo(LIMIT);
+        assertThat(bulkhead.getWaiting()).isZero();
+    }
+
+    @Test
+    void releasesBudgetWhenNoTasksAreWaiting() {
+        fillLimit();
+
+        dispatched.get(0).run();
+
+        assertThat(executed).hasValue(1);
+        assertThat(bulkhead.getActive()).isEqualTo(LIMIT - 1);
+    }
+
+    @Test
+    void limitsWaitingTasksPerLane() {
+        fillLimit();
+        bulkhead.submit(Priority.BACKGROUND, task);
+
+        assertThat(bulkhead.accepts(Priority.BACKGROUND)).isFalse();
+        assertThat(bulkhead.accepts(Priority.INTERACTIVE)).isTrue();
+        assertThat(bulkhead.submit(Priority.BACKGROUND, task)).isFalse();
+        assertThat(bulkhead.submit(Priority.INTERACTIVE, task)).isTrue();
+        assertThat(bulkhead.getWaiting()).isEqualTo(2);
+    }
+
+    @Test
+    void dispatchesInteractiveTaskFirst_backgroundTasksWaiting() {
+        final var order = new ArrayList<Priority>();
+        final var lanes = new Bulkhead(LISTENER, 1, 10, Duration.ofHours(1),
+                (priority, runnable) -> dispatched.add(runnable), clock::get);
+        lanes.submit(Priority.BACKGROUND, task);
+        for (int i = 0; i < 3; i++) {
+            lanes.submit(Priority.BACKGROUND, () -> order.add(Priority.BACKGROUND));
+            clock.incrementAndGet();
+        }
+        lanes.submit(Priority.INTERACTIVE, () -> order.add(Priority.INTERACTIVE));
+
+        for (int i = 0; i < dispatched.size(); i++) {
+            dispatched.get(i).run();
+        }
+
+        assertThat(order).containsExactly(Priority.INTERACTIVE, Priority.BACKGROUND, Priority.BACKGROUND, Priority.BACKGROUND);
+    }
+
+    @Test
+    void dispatchesAgedTaskFirst() {
+        final var order = new ArrayList<Priority>();
+        final var lanes = new Bulkhead(LISTENER, 1, 10, Duration.ofHours(1),
+                (priority, runnable) -> dispatched.add(runnable), clock::get);
+        lanes.submit(Priority.BACKGROUND, task);
+        lanes.submit(Priority.BACKGROUND, () -> order.add(Priority.BACKGROUND));
+        clock.addAndGet(Priority.BACKGROUND.getAging().toNanos() + 1);
+        lanes.submit(Priority.CASCADE, () -> order.add(Priority.CASCADE));
+
+        for (int i = 0; i < dispatched.size(); i++) {
+            dispatched.get(i).run();
+        }
+
+        assertThat(order).containsExactly(Priority.BACKGROUND, Priority.CASCADE);
+    }
+
+    @Test
+    void dropsTasksThatWaitedTooLong() {
+        fillLimit();
+        bulkhead.submit(Priority.CASCADE, task);
+        clock.addAndGet(TIMEOUT.toNanos() + 1);
+
+        dispatched.get(0).run();
+
+        assertThat(dispatched).hasSize(LIMIT);
+        assertThat(bulkhead.getActive()).isEqualTo(LIMIT - 1);
+        assertThat(bulkhead.getWaiting()).isZero();
+    }
+
+    @Test
+    void rejectsTasks_dispatcherRefuses() {
+        final var refusing = new Bulkhead(LISTENER, LIMIT, CAPACITY, TIMEOUT, (priority, runnable) -> false, clock::get);
+
+        assertThat(refusing.submit(Priority.CASCADE, task)).isFalse();
+
+        assertThat(executed).hasValue(0);
+        assertThat(refusing.getActive()).isZero();
+    }
+
+    @Test
+    void dropsWaitingTasks_dispatcherRefuses() {
+        final var refuse = new AtomicInteger();
+        final var refusing = new Bulkhead(LISTENER, 1, CAPACITY, TIMEOUT,
+                (priority, runnable) -> refuse.get() == 0 && dispatched.add(runnable), clock::get);
+        final var dropped = new AtomicInteger();
+        refusing.submit(Priority.CASCADE, task);
+        refusing.submit(Priority.CASCADE, task, dropped::incrementAndGet);
+        refuse.set(1);
+
+        dispatched.get(0).run();
+
+        assertThat(executed).hasValue(1);
+        assertThat(dropped).hasValue(1);
+        assertThat(refusing.getActive()).isZero();
+        assertThat(refusing.getWaiting()).isZero();
+    }
+
+    @Test
+    void reportsMetrics() {
+        final var registry = new SimpleMeterRegistry();
+        bulkhead.bindTo(registry);
+        fillLimit();
+        bulkhead.submit(Priority.CASCADE, task);
+        bulkhead.submit(Priority.CASCADE, task);
+
+        assertThat(registry.get("harvest.bulkhead.active").tag("listener", LISTENER).gauge().value()).isEqualTo(LIMIT);
+        assertThat(registry.get("harvest.bulkhead.waiting").tag("listener", LISTENER).gauge().value()).isEqualTo(1);
+        assertThat(registry.get("harvest.bulkhead.rejected").tag("listener", LISTENER).functionCounter().count()).isEqualTo(1);
+    }
+
+    private void fillLimit() {
+        for (int i = 0; i < LIMIT; i++) {
+            bulkhead.submit(Priority.CASCADE, task);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    private static final int THRESHOLD = 2;
+    private static final Duration DELAY = Duration.ofSeconds(10);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("Listener", THRESHOLD, DELAY, clock::get);
+
+    @Test
+    void permitsCalls_closed() {
+        breaker.failed();
+
+        assertThat(breaker.acquire()).isZero();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        breaker.failed();
+        breaker.failed();
+        clock.addAndGet(DELAY.toNanos() / 2);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.acquire()).isEqualTo(DELAY.toNanos() / 2);
+    }
+
+    @Test
+    void resetsFailureCountOnSuccess() {
+        breaker.failed();
+        breaker.succeeded();
+        breaker.failed();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void permitsSingleProbeAfterDelay() {
+        open();
+        clock.addAndGet(DELAY.toNanos());
+
+        assertThat(breaker.acquire()).isZero();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.acquire()).isPositive();
+    }
+
+    @Test
+    void closesOnSuccessfulProbe() {
+        open();
+        clock.addAndGet(DELAY.toNanos());
+        breaker.acquire();
+
+        breaker.succeeded();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.acquire()).isZero();
+    }
+
+    @Test
+    void reopensOnFailedProbe() {
+        open();
+        clock.addAndGet(DELAY.toNanos());
+        breaker.acquire();
+
+        breaker.failed();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.acquire()).isEqualTo(DELAY.toNanos());
+    }
+
+    private void open() {
+        for (int i = 0; i < THRESHOLD; i++) {
+            breaker.failed();
+        }
+    }
+}
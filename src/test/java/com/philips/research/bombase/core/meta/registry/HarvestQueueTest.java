@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HarvestQueueTest {
+    private static final String WORKLOAD = "io";
+    private static final int CAPACITY = 3;
+    private static final Runnable TASK = () -> {
+    };
+    private static final Runnable OTHER = () -> {
+    };
+
+    private final AtomicLong clock = new AtomicLong();
+    private final HarvestQueue queue = new HarvestQueue(WORKLOAD, CAPACITY, clock::get);
+
+    @Test
+    void takesHigherPriorityFirst() throws Exception {
+        queue.offer(Priority.BACKGROUND, OTHER);
+        queue.offer(Priority.INTERACTIVE, TASK);
+
+        assertThat(queue.take()).isSameAs(TASK);
+        assertThat(queue.take()).isSameAs(OTHER);
+    }
+
+    @Test
+    void keepsOrderWithinLane() throws Exception {
+        queue.offer(Priority.CASCADE, TASK);
+        queue.offer(Priority.CASCADE, OTHER);
+
+        assertThat(queue.take()).isSameAs(TASK);
+        assertThat(queue.take()).isSameAs(OTHER);
+    }
+
+    @Test
+    void agesWaitingTasks() throws Exception {
+        queue.offer(Priority.CASCADE, OTHER);
+        clock.addAndGet(Priority.CASCADE.getAging().toNanos() + 1);
+        queue.offer(Priority.INTERACTIVE, TASK);
+
+        assertThat(queue.take()).isSameAs(OTHER);
+        assertThat(queue.take()).isSameAs(TASK);
+    }
+
+    @Test
+    void rejectsTasksForFullLane() {
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(queue.offer(Priority.CASCADE, TASK)).isTrue();
+        }
+
+        assertThat(queue.accepts(Priority.CASCADE)).isFalse();
+        assertThat(queue.offer(Priority.CASCADE, TASK)).isFalse();
+        assertThat(queue.accepts(Priority.INTERACTIVE)).isTrue();
+        assertThat(queue.depth(Priority.CASCADE)).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void exposesMetricsPerLane() throws Exception {
+        final var registry = new SimpleMeterRegistry();
+        queue.bindTo(registry);
+        queue.offer(Priority.INTERACTIVE, TASK);
+        queue.offer(Priority.INTERACTIVE, TASK);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        queue.take();
+        for (int i = 0; i < CAPACITY + 1; i++) {
+            queue.offer(Priority.BACKGROUND, TASK);
+        }
+
+        assertThat(registry.get("harvest.queue.depth").tags("lane", "interactive", "workload", WORKLOAD).gauge().value()).isEqualTo(1.0);
+        final var wait = registry.get("harvest.queue.wait").tag("lane", "interactive").functionTimer();
+        assertThat(wait.count()).isEqualTo(1.0);
+        assertThat(wait.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(50.0);
+        assertThat(registry.get("harvest.queue.rejected").tag("lane", "background").functionCounter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HarvestSchedulerTest {
+    private static final PackageURL PURL = toPurl("pkg:type/namespace/name@version");
+    private static final PackageURL OTHER_PURL = toPurl("pkg:type/namespace/name@other");
+    private static final String HARVESTER = "Harvester";
+    private static final String OTHER_HARVESTER = "Other";
+    private static final String SCANNER = "Scanner";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Set<String>> upstream = Map.of(SCANNER, Set.of(HARVESTER, OTHER_HARVESTER));
+    private final Map<String, HarvestScheduler.Step> dispatched = new HashMap<>();
+    private final HarvestScheduler<String> scheduler = new HarvestScheduler<>(
+            listener -> upstream.getOrDefault(listener, Set.of()), listener -> listener, clock::get);
+
+    private static PackageURL toPurl(String purl) {
+        try {
+            return new PackageURL(purl);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void trigger(PackageURL purl, String listener, HarvestScheduler.Step cause) {
+        scheduler.trigger(purl, listener, cause, step -> dispatched.put(listener, step));
+    }
+
+    private void execute(String listener, long duration) {
+        final var step = dispatched.get(listener);
+        scheduler.started(step);
+        clock.addAndGet(duration);
+        scheduler.completed(PURL, listener, step);
+    }
+
+    @Test
+    void dispatchesIndependentTasksImmediately() {
+        trigger(PURL, HARVESTER, null);
+        trigger(PURL, OTHER_HARVESTER, null);
+
+        assertThat(dispatched).containsOnlyKeys(HARVESTER, OTHER_HARVESTER);
+        assertThat(scheduler.getActive()).isEqualTo(1);
+    }
+
+    @Test
+    void defersTaskWhileUpstreamTasksAreInFlight() {
+        trigger(PURL, HARVESTER, null);
+        trigger(PURL, OTHER_HARVESTER, null);
+        trigger(PURL, SCANNER, dispatched.get(HARVESTER));
+
+        assertThat(dispatched).doesNotContainKey(SCANNER);
+        execute(HARVESTER, 10);
+        assertThat(dispatched).doesNotContainKey(SCANNER);
+        execute(OTHER_HARVESTER, 10);
+        assertThat(dispatched).containsKey(SCANNER);
+    }
+
+    @Test
+    void completesAwaitedHarvest() {
+        trigger(PURL, HARVESTER, null);
+        trigger(PURL, OTHER_HARVESTER, null);
+        final var settled = scheduler.awaitCompletion(PURL);
+
+        execute(HARVESTER, 10);
+        assertThat(settled).isNotDone();
+        execute(OTHER_HARVESTER, 10);
+
+        assertThat(settled).isCompleted();
+    }
+
+    @Test
+    void completesAwaitedHarvestImmediately_nothingInFlight() {
+        trigger(OTHER_PURL, HARVESTER, null);
+
+        assertThat(scheduler.awaitCompletion(PURL)).isCompleted();
+    }
+
+    @Test
+    void dispatchesTaskWithoutUpstreamTasksInFlight() {
+        trigger(PURL, SCANNER, null);
+
+        assertThat(dispatched).containsKey(SCANNER);
+    }
+
+    @Test
+    void separatesPackages() {
+        trigger(OTHER_PURL, HARVESTER, null);
+        trigger(PURL, SCANNER, null);
+
+        assertThat(dispatched).containsKey(SCANNER);
+        assertThat(scheduler.getActive()).isEqualTo(2);
+    }
+
+    @Test
+    void completesHarvestWhenNoTasksAreInFlight() {
+        trigger(PURL, HARVESTER, null);
+        trigger(PURL, SCANNER, null);
+
+        execute(HARVESTER, 10);
+        assertThat(scheduler.getActive()).isEqualTo(1);
+        execute(SCANNER, 10);
+        assertThat(scheduler.getActive()).isZero();
+    }
+
+    @Test
+    void reportsCriticalPath() {
+        final var registry = new SimpleMeterRegistry();
+        scheduler.bindTo(registry);
+        trigger(PURL, HARVESTER, null);
+        trigger(PURL, OTHER_HARVESTER, null);
+        execute(OTHER_HARVESTER, 100);
+        trigger(PURL, SCANNER, dispatched.get(OTHER_HARVESTER));
+        execute(HARVESTER, 50);
+        execute(SCANNER, 200);
+
+        assertThat(dispatched.get(SCANNER).chain()).containsExactly(OTHER_HARVESTER, SCANNER);
+        assertThat(registry.get("harvest.critical.path").timer().totalTime(TimeUnit.NANOSECONDS)).isEqualTo(300);
+        assertThat(registry.get("harvest.duration").timer().totalTime(TimeUnit.NANOSECONDS)).isEqualTo(350);
+        assertThat(registry.get("harvest.tasks.deferred").functionCounter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListenerTableTest {
+    private static final String TYPE = "type";
+    private static final String OTHER_TYPE = "other";
+    private static final String ANY = "Any";
+    private static final String CREATED = "Created";
+    private static final String TYPED = "Typed";
+    private static final String TITLE = "Title";
+    private static final String LICENSE = "License";
+
+    private final Map<String, Interest> interests = new HashMap<>();
+    private final ListenerTable<String> table = new ListenerTable<>(interests::get);
+
+    private void register(String listener, Interest interest) {
+        interests.put(listener, interest);
+        table.add(listener);
+    }
+
+    @Test
+    void selectsListenersForNewPackage() {
+        register(ANY, Interest.any());
+        register(CREATED, Interest.created());
+        register(TITLE, Interest.modified(Field.TITLE));
+
+        assertThat(table.select(TYPE, Set.of())).containsExactly(ANY, CREATED);
+    }
+
+    @Test
+    void selectsListenersForModifiedFields() {
+        register(ANY, Interest.any());
+        register(CREATED, Interest.created());
+        register(TITLE, Interest.modified(Field.TITLE));
+        register(LICENSE, Interest.modified(Field.DECLARED_LICENSE, Field.DETECTED_LICENSES));
+
+        assertThat(table.select(TYPE, Set.of(Field.TITLE))).containsExactly(ANY, TITLE);
+        assertThat(table.select(TYPE, Set.of(Field.DETECTED_LICENSES, Field.TITLE))).containsExactly(ANY, TITLE, LICENSE);
+        assertThat(table.select(TYPE, Set.of(Field.DESCRIPTION))).containsExactly(ANY);
+    }
+
+    @Test
+    void selectsListenersForPurlType() {
+        register(TYPED, Interest.created().forTypes(TYPE::equals));
+        register(CREATED, Interest.created());
+
+        assertThat(table.select(TYPE, Set.of())).containsExactly(TYPED, CREATED);
+        assertThat(table.select(OTHER_TYPE, Set.of())).containsExactly(CREATED);
+    }
+
+    @Test
+    void includesListenersAddedAfterSelection() {
+        register(CREATED, Interest.created());
+        table.select(TYPE, Set.of());
+
+        register(ANY, Interest.any());
+
+        assertThat(table.select(TYPE, Set.of())).containsExactly(CREATED, ANY);
+    }
+
+    @Test
+    void derivesUpstreamListeners() {
+        register(CREATED, Interest.created().produces(Set.of(Field.SOURCE_LOCATION)));
+        register(TITLE, Interest.modified(Field.TITLE).produces(Set.of()));
+        register(TYPED, Interest.modified(Field.SOURCE_LOCATION).produces(Set.of(Field.DETECTED_LICENSES)));
+        register(LICENSE, Interest.modified(Field.DETECTED_LICENSES).produces(Set.of(Field.DETECTED_LICENSES)));
+
+        assertThat(table.upstreamOf(CREATED)).isEmpty();
+        assertThat(table.upstreamOf(TYPED)).containsExactly(CREATED);
+        assertThat(table.upstreamOf(LICENSE)).containsExactlyInAnyOrder(CREATED, TYPED);
+    }
+
+    @Test
+    void ignoresDuplicateRegistration() {
+        register(ANY, Interest.any());
+
+        assertThat(table.add(ANY)).isFalse();
+        assertThat(table.select(TYPE, Set.of())).containsExactly(ANY);
+    }
+}
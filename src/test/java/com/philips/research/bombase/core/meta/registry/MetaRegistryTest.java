@@ -6,18 +6,33 @@
 package com.philips.research.bombase.core.meta.registry;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.QueueFullException;
 import com.philips.research.bombase.core.meta.MetaStore;
+import com.philips.research.bombase.core.meta.TaskJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -66,15 +81,143 @@ class MetaRegistryTest {
         assertThat(pkg.getAttributeFor(FIELD).orElseThrow().getValue()).contains(VALUE);
     }
 
+    @Test
+    void serializesEditsOfSamePackage_concurrentEdits() throws Exception {
+        final var threads = 8;
+        final var edits = 2_000;
+        final var other = new Package(toPurl("pkg:type/other@version"));
+        when(store.findPackage(other.getPurl())).thenReturn(Optional.of(other));
+        final var executor = Executors.newFixedThreadPool(threads);
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < threads; i++) {
+            final var purl = (i % 2 == 0) ? PURL : other.getPurl();
+            tasks.add(() -> {
+                for (int j = 0; j < edits; j++) {
+                    registry.edit(purl, editor -> {
+                        final int count = Integer.parseInt(editor.<String>get(FIELD).orElse("0"));
+                        editor.update(FIELD, Trust.TRUTH, String.valueOf(count + 1));
+                    });
+                }
+                return null;
+            });
+        }
+
+        for (var future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        final var expected = String.valueOf(threads / 2 * edits);
+        assertThat(pkg.getAttributeFor(FIELD).orElseThrow().getValue()).contains(expected);
+        assertThat(other.getAttributeFor(FIELD).orElseThrow().getValue()).contains(expected);
+    }
+
+    @Test
+    void editsPackage_whileListenerTaskFetches() throws Exception {
+        final var properties = new ConfigProperties().setCpuThreads(1).setIoThreads(1);
+        final var executor = new SimpleAsyncTaskExecutor();
+        executor.setDaemon(true);
+        final var runner = new QueuedTaskRunner(store, properties, executor, executor);
+        final var async = new MetaRegistry(store, runner);
+        final var fetching = new CountDownLatch(1);
+        final var fetched = new CountDownLatch(1);
+        final var triggered = new AtomicInteger();
+        async.addListener((purl, updated, values) -> (triggered.getAndIncrement() == 0)
+                ? Optional.of(editor -> {
+                    fetching.countDown();
+                    try {
+                        fetched.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    editor.update(Field.DESCRIPTION, TRUST, VALUE);
+                })
+                : Optional.empty());
+        final var client = Executors.newSingleThreadExecutor();
+
+        try {
+            async.edit(PURL, editor -> editor.update(FIELD, TRUST, VALUE));
+            assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+            client.submit(() -> async.edit(PURL, editor -> editor.update(FIELD, Trust.TRUTH, "Edited")))
+                    .get(5, TimeUnit.SECONDS);
+
+            assertThat(pkg.getAttributeFor(FIELD).orElseThrow().getValue()).contains("Edited");
+        } finally {
+            fetched.countDown();
+            client.shutdown();
+            runner.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsEdits_fullQueue() {
+        final var properties = new ConfigProperties().setHarvestQueueCapacity(0).setCpuThreads(1).setIoThreads(1);
+        final var executor = new SimpleAsyncTaskExecutor();
+        executor.setDaemon(true);
+        final var runner = new QueuedTaskRunner(store, properties, executor, executor);
+        final var busy = new MetaRegistry(store, runner);
+
+        try {
+            assertThatThrownBy(() -> busy.edit(PURL, editor -> editor.update(FIELD, TRUST, VALUE)))
+                    .isInstanceOf(QueueFullException.class);
+            assertThat(pkg.getAttributeFor(FIELD)).isEmpty();
+        } finally {
+            runner.shutdown();
+        }
+    }
+
+    @Test
+    void schedulesStoredPackagesForRefresh() {
+        final var meters = new SimpleMeterRegistry();
+        registry.bindTo(meters);
+        final var listener = mock(MetaRegistry.PackageListener.class);
+        when(listener.getInterest()).thenReturn(Interest.created());
+        registry.addListener(listener);
+        final var other = new Package(toPurl("pkg:type/other@version"));
+        when(store.allPackages()).thenReturn(Stream.of(pkg, other));
+
+        registry.startRefresh();
+        registry.shutdown();
+
+        assertThat(meters.get("harvest.refresh.scheduled").gauge().value()).isEqualTo(2);
+    }
+
     @Nested
     class Listeners {
         final MetaRegistry.PackageListener listener = mock(MetaRegistry.PackageListener.class);
 
         @BeforeEach
         void beforeEach() {
+            when(listener.getInterest()).thenReturn(Interest.any());
             registry.addListener(listener);
         }
 
+        @Test
+        void skipsListeners_otherPurlType() {
+            final var other = mock(MetaRegistry.PackageListener.class);
+            when(other.getInterest()).thenReturn(Interest.created().forTypes(type -> !type.equals(PURL.getType())));
+            registry.addListener(other);
+            when(store.findPackage(PURL)).thenReturn(Optional.empty());
+
+            registry.edit(PURL, pkg -> pkg.get(FIELD));
+
+            verify(listener).onUpdated(PURL, Set.of(), Map.of());
+            verify(other, never()).onUpdated(any(), any(), any());
+        }
+
+        @Test
+        void skipsListeners_otherModifiedFields() {
+            final var other = mock(MetaRegistry.PackageListener.class);
+            when(other.getInterest()).thenReturn(Interest.modified(Field.DESCRIPTION));
+            registry.addListener(other);
+
+            registry.edit(PURL, pkg -> pkg.update(FIELD, TRUST, VALUE));
+
+            verify(listener).onUpdated(PURL, Set.of(FIELD), Map.of(FIELD, VALUE));
+            verify(other, never()).onUpdated(any(), any(), any());
+        }
+
         @Test
         void notifiesListeners_createPackage() {
             when(store.findPackage(PURL)).thenReturn(Optional.empty());
@@ -83,6 +226,42 @@ class MetaRegistryTest {
             verify(listener).onUpdated(PURL, Set.of(), Map.of());
         }
 
+        @Test
+        void notifiesListenersOnce_concurrentCreation() throws Exception {
+            final var created = new AtomicReference<Package>();
+            when(store.findPackage(PURL)).thenAnswer((p) -> Optional.ofNullable(created.get()));
+            when(store.createPackage(PURL)).thenAnswer((p) -> {
+                created.set(pkg);
+                return pkg;
+            });
+            when(listener.onUpdated(any(), any(), any())).thenAnswer((p) -> {
+                Thread.sleep(50);
+                return Optional.empty();
+            });
+            final var threads = 8;
+            final var executor = Executors.newFixedThreadPool(threads);
+            final var start = new CountDownLatch(1);
+            final var tasks = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    start.await();
+                    registry.edit(PURL, editor -> editor.get(FIELD));
+                    return null;
+                });
+            }
+
+            final var futures = new ArrayList<Future<Void>>();
+            tasks.forEach(task -> futures.add(executor.submit(task)));
+            start.countDown();
+            for (var future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            verify(store, times(1)).createPackage(PURL);
+            verify(listener, times(1)).onUpdated(PURL, Set.of(), Map.of());
+        }
+
         @Test
         void notifiesListeners_modifiedFields() {
             registry.edit(PURL, pkg -> pkg.update(FIELD, TRUST, VALUE));
@@ -109,6 +288,26 @@ class MetaRegistryTest {
             verify(task).accept(any(PackageAttributeEditor.class));
         }
 
+        @Test
+        void executesTasksOfListenersOfSameClass() {
+            final var other = mock(MetaRegistry.PackageListener.class);
+            when(other.getInterest()).thenReturn(Interest.any());
+            registry.addListener(other);
+            final var task = mock(Consumer.class);
+            final var otherTask = mock(Consumer.class);
+            //noinspection unchecked
+            when(listener.onUpdated(any(), any(), any())).thenReturn(Optional.of(task));
+            //noinspection unchecked
+            when(other.onUpdated(any(), any(), any())).thenReturn(Optional.of(otherTask));
+
+            registry.edit(PURL, editor -> editor.update(FIELD, TRUST, VALUE));
+
+            //noinspection unchecked
+            verify(task).accept(any(PackageAttributeEditor.class));
+            //noinspection unchecked
+            verify(otherTask).accept(any(PackageAttributeEditor.class));
+        }
+
         @Test
         void cascadesEditsToListenersUntilNoMoreEditsAreMade() {
             final var counter = new AtomicInteger(1);
@@ -131,4 +330,63 @@ class MetaRegistryTest {
             verify(task, times(Trust.values().length - 1)).accept(any());
         }
     }
+
+    @Nested
+    class Journal {
+        final TaskJournal journal = mock(TaskJournal.class);
+        final MetaRegistry registry = new MetaRegistry(store, new QueuedTaskRunner(store), journal, new ConfigProperties());
+        final MetaRegistry.PackageListener listener = mock(MetaRegistry.PackageListener.class);
+        @SuppressWarnings("unchecked")
+        final Consumer<PackageAttributeEditor> task = mock(Consumer.class);
+
+        @BeforeEach
+        void beforeEach() {
+            when(listener.getInterest()).thenReturn(Interest.any());
+            registry.addListener(listener);
+        }
+
+        @Test
+        void journalsRequestedAndCompletedTasks() {
+            when(journal.position()).thenReturn(42L);
+            when(listener.onUpdated(any(), any(), any())).thenReturn(Optional.of(task));
+
+            registry.edit(PURL, editor -> editor.update(FIELD, TRUST, VALUE));
+
+            final var name = registry.nameOf(listener);
+            verify(journal).requested(PURL, name, Priority.INTERACTIVE, Set.of(FIELD));
+            verify(journal).completed(PURL, name, 42L);
+        }
+
+        @Test
+        void skipsJournal_noTask() {
+            registry.edit(PURL, editor -> editor.update(FIELD, TRUST, VALUE));
+
+            verify(journal, never()).requested(any(), any(), any(), any());
+        }
+
+        @Test
+        void resumesUnfinishedTasks() {
+            pkg.add(new Attribute<>(FIELD, TRUST.getScore(), VALUE, 0, null));
+            final var name = registry.nameOf(listener);
+            when(journal.unfinished()).thenReturn(List.of(new TaskJournal.Task(7, PURL, name, Priority.CASCADE, Set.of(FIELD))));
+            when(listener.onUpdated(any(), any(), any())).thenReturn(Optional.of(task));
+
+            registry.resumeUnfinishedTasks(1);
+
+            verify(listener, timeout(1000)).onUpdated(PURL, Set.of(FIELD), Map.of(FIELD, VALUE));
+            verify(task, timeout(1000)).accept(any(PackageAttributeEditor.class));
+            verify(journal, timeout(1000)).completed(eq(PURL), eq(name), anyLong());
+            verify(journal, never()).requested(any(), any(), any(), any());
+        }
+
+        @Test
+        void completesUnfinishedTasks_unknownListener() {
+            when(journal.unfinished()).thenReturn(List.of(new TaskJournal.Task(7, PURL, "Unknown", Priority.CASCADE, Set.of())));
+
+            registry.resumeUnfinishedTasks(1);
+
+            verify(journal, timeout(1000)).completed(PURL, "Unknown", 7L);
+            verify(listener, never()).onUpdated(any(), any(), any());
+        }
+    }
 }
@@ -9,6 +9,7 @@ import com.github.packageurl.MalformedPackageURLException;
 import com.github.packageurl.PackageURL;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,6 +65,34 @@ class PackageAttributeEditorTest {
         assertThat(editor.isModified()).isTrue();
     }
 
+    @Test
+    void marksPackageUpdated_scoreOrAlternativeChange() {
+        final var lastUpdated = Instant.EPOCH;
+        final var existing = new Package(PURL, lastUpdated);
+        existing.add(new Attribute<>(Field.TITLE, TRUST.getScore(), TITLE, 0, null));
+        final var editor = new PackageAttributeEditor(existing);
+
+        editor.update(Field.TITLE, Trust.CERTAIN, TITLE);
+        editor.update(Field.TITLE, Trust.MAYBE, "Alternative");
+
+        assertThat(editor.isModified()).isFalse();
+        assertThat(editor.getModifiedFields()).isEmpty();
+        assertThat(existing.getLastUpdated()).isAfter(lastUpdated);
+    }
+
+    @Test
+    void keepsPackageUnchanged_noAttributeChange() {
+        final var lastUpdated = Instant.EPOCH;
+        final var existing = new Package(PURL, lastUpdated);
+        existing.add(new Attribute<>(Field.TITLE, TRUST.getScore(), TITLE, 0, null));
+        final var editor = new PackageAttributeEditor(existing);
+
+        editor.update(Field.TITLE, TRUST, TITLE);
+
+        assertThat(editor.isModified()).isFalse();
+        assertThat(existing.getLastUpdated()).isEqualTo(lastUpdated);
+    }
+
     @Test
     void snapshotsValues() {
         pkg.add(new Attribute<>(Field.SHA1));
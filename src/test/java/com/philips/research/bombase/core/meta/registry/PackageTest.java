@@ -46,6 +46,15 @@ class PackageTest {
         assertThat(pkg.getAttributeFor(FIELD)).contains(attribute);
     }
 
+    @Test
+    void listsAttributesInFieldOrder() {
+        final var license = pkg.add(new Attribute<>(Field.DECLARED_LICENSE));
+        final var title = pkg.add(new Attribute<>(Field.TITLE));
+
+        assertThat(pkg.getAttributes()).containsExactly(title, license);
+        assertThat(pkg.getAttributeFor(Field.DESCRIPTION)).isEmpty();
+    }
+
     @Test
     void throws_addDuplicateAttribute() {
         pkg.add(new Attribute(FIELD));
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.QueueFullException;
+import com.philips.research.bombase.core.meta.MetaStore;
+import com.philips.research.bombase.core.meta.SourceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueuedTaskRunnerTest {
+    private static final PackageURL PURL = MetaRegistryTest.toPurl("pkg:type/name@version");
+    private static final String CPU_LISTENER = "Scanner";
+    private static final String IO_LISTENER = "Registry";
+
+    private final MetaStore store = mock(MetaStore.class);
+    private final ConfigProperties properties = new ConfigProperties()
+            .setCpuThreads(1)
+            .setIoThreads(2)
+            .setCpuListeners(Set.of(CPU_LISTENER));
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    private QueuedTaskRunner runner;
+
+    @BeforeEach
+    void beforeEach() {
+        when(store.findPackage(PURL)).thenReturn(Optional.of(new Package(PURL)));
+        runner = new QueuedTaskRunner(store, properties, executor("cpu-"), executor("io-"));
+    }
+
+    @AfterEach
+    void afterEach() {
+        runner.shutdown();
+    }
+
+    private static SimpleAsyncTaskExecutor executor(String prefix) {
+        final var executor = new SimpleAsyncTaskExecutor(prefix);
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Test
+    void runsCpuBoundTasksOnCpuWorkers() throws Exception {
+        assertThat(threadFor(CPU_LISTENER)).startsWith("cpu-");
+    }
+
+    @Test
+    void runsOtherTasksOnIoWorkers() throws Exception {
+        assertThat(threadFor(IO_LISTENER)).startsWith("io-");
+    }
+
+    @Test
+    void runsTasksDirectly_synchronousRunner() {
+        final var direct = new QueuedTaskRunner(store);
+        final var thread = new CompletableFuture<String>();
+
+        direct.execute(PURL, IO_LISTENER, Priority.INTERACTIVE,
+                editor -> thread.complete(Thread.currentThread().getName()), editor -> {
+                });
+
+        assertThat(thread).isCompletedWithValue(Thread.currentThread().getName());
+    }
+
+    @Test
+    void dropsTasks_queueFull() throws Exception {
+        final var full = new QueuedTaskRunner(store, new ConfigProperties().setHarvestQueueCapacity(0),
+                executor("cpu-"), executor("io-"));
+        final var executed = new AtomicInteger();
+        final var completed = new CompletableFuture<String>();
+
+        try {
+            full.execute(PURL, IO_LISTENER, Priority.BACKGROUND, editor -> executed.incrementAndGet(), editor -> {
+            }, () -> completed.complete(Thread.currentThread().getName()));
+
+            assertThat(completed.get(5, TimeUnit.SECONDS)).isEqualTo(Thread.currentThread().getName());
+            assertThat(executed).hasValue(0);
+        } finally {
+            full.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsAdmission_bulkheadLaneFull() throws Exception {
+        properties.setBulkheads(Map.of(IO_LISTENER, new ConfigProperties.BulkheadProperties().setLimit(1).setQueue(1)));
+        final var running = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        runner.execute(PURL, IO_LISTENER, Priority.INTERACTIVE, editor -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, editor -> {
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            runner.execute(MetaRegistryTest.toPurl("pkg:type/other@version"), IO_LISTENER, Priority.INTERACTIVE,
+                    editor -> {
+                    }, editor -> {
+                    });
+
+            assertThatThrownBy(() -> runner.admit(Priority.INTERACTIVE)).isInstanceOf(QueueFullException.class);
+            runner.admit(Priority.BACKGROUND);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void retriesTasks_sourceUnavailable() throws Exception {
+        properties.setRetryDelay(Duration.ofMillis(1));
+        final var attempts = new AtomicInteger();
+        final var completed = new CompletableFuture<Integer>();
+
+        runner.execute(PURL, IO_LISTENER, Priority.INTERACTIVE, editor -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw unavailable();
+            }
+        }, editor -> {
+        }, () -> completed.complete(attempts.get()));
+
+        assertThat(completed.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+    }
+
+    @Test
+    void doublesBackoffUpToMaximum() {
+        final var delay = Duration.ofSeconds(1);
+        final var max = Duration.ofMinutes(5);
+
+        assertThat(QueuedTaskRunner.backoff(delay, max, 1)).isBetween(delay.toNanos() / 2, delay.toNanos());
+        assertThat(QueuedTaskRunner.backoff(delay, max, 3)).isBetween(2 * delay.toNanos(), 4 * delay.toNanos());
+        assertThat(QueuedTaskRunner.backoff(delay, max, 20)).isBetween(max.toNanos() / 2, max.toNanos());
+    }
+
+    @Test
+    void limitsBackoff_shiftOverflows() {
+        final var delay = Duration.ofHours(1);
+        final var max = Duration.ofDays(365);
+        final var shifts = Long.numberOfLeadingZeros(delay.toNanos());
+
+        for (int attempts = shifts - 2; attempts <= shifts + 2; attempts++) {
+            assertThat(QueuedTaskRunner.backoff(delay, max, attempts)).isBetween(max.toNanos() / 2, max.toNanos());
+        }
+        assertThat(QueuedTaskRunner.backoff(delay, max, Integer.MAX_VALUE)).isBetween(max.toNanos() / 2, max.toNanos());
+    }
+
+    @Test
+    void keepsZeroBackoff_noRetryDelay() {
+        assertThat(QueuedTaskRunner.backoff(Duration.ZERO, Duration.ofMinutes(5), 100)).isZero();
+    }
+
+    @Test
+    void dropsTasks_lastAttemptFailed() throws Exception {
+        properties.setRetryDelay(Duration.ofMillis(1)).setRetryAttempts(2).setBreakerThreshold(10);
+        final var attempts = new AtomicInteger();
+        final var completed = new CompletableFuture<Integer>();
+
+        runner.execute(PURL, IO_LISTENER, Priority.INTERACTIVE, editor -> {
+            attempts.incrementAndGet();
+            throw unavailable();
+        }, editor -> {
+        }, () -> completed.complete(attempts.get()));
+
+        assertThat(completed.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    void holdsBackTasks_sourceUnavailable() throws Exception {
+        properties.setRetryAttempts(1).setBreakerThreshold(1).setBreakerDelay(Duration.ofHours(1));
+        final var failed = new CompletableFuture<Void>();
+        runner.execute(PURL, IO_LISTENER, Priority.INTERACTIVE, editor -> {
+            throw unavailable();
+        }, editor -> {
+        }, () -> failed.complete(null));
+        failed.get(5, TimeUnit.SECONDS);
+        final var executed = new CompletableFuture<Void>();
+
+        runner.execute(PURL, IO_LISTENER, Priority.INTERACTIVE, editor -> executed.complete(null), editor -> {
+        });
+
+        Thread.sleep(100);
+        assertThat(executed).isNotDone();
+    }
+
+    private static SourceUnavailableException unavailable() {
+        return new SourceUnavailableException("Failed", new IllegalStateException("Not reachable"));
+    }
+
+    private String threadFor(String listener) throws Exception {
+        final var thread = new CompletableFuture<String>();
+
+        runner.execute(PURL, listener, Priority.INTERACTIVE,
+                editor -> thread.complete(Thread.currentThread().getName()), editor -> {
+                });
+
+        return thread.get(5, TimeUnit.SECONDS);
+    }
+}
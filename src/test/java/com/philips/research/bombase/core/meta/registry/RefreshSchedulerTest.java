@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshSchedulerTest {
+    private static final int RATE = 2;
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> dispatched = new ArrayList<>();
+    private final AtomicBoolean accepting = new AtomicBoolean(true);
+    private final RefreshScheduler<String> refresher = new RefreshScheduler<>(RATE, key -> {
+        if (accepting.get()) {
+            dispatched.add(key);
+        }
+        return accepting.get();
+    }, clock::get);
+
+    @Test
+    void dispatchesStaleHarvests() {
+        refresher.harvested("A", TTL);
+        refresher.tick();
+        assertThat(dispatched).isEmpty();
+
+        clock.addAndGet(TTL.toMillis() + Duration.ofMinutes(1).toMillis());
+        refresher.tick();
+
+        assertThat(dispatched).containsExactly("A");
+        assertThat(refresher.getScheduled()).isZero();
+    }
+
+    @Test
+    void limitsDispatchesPerTick() {
+        refresher.harvested("A", Duration.ZERO);
+        refresher.harvested("B", Duration.ZERO);
+        refresher.harvested("C", Duration.ZERO);
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+
+        refresher.tick();
+        assertThat(dispatched).hasSize(RATE);
+        refresher.tick();
+
+        assertThat(dispatched).containsExactlyInAnyOrder("A", "B", "C");
+    }
+
+    @Test
+    void schedulesAccessedPackagesFromLastHarvest() {
+        clock.set(TTL.toMillis() * 2);
+
+        assertThat(refresher.accessed("A")).isFalse();
+        refresher.accessed("A", 0, TTL);
+        refresher.tick();
+
+        assertThat(dispatched).containsExactly("A");
+    }
+
+    @Test
+    void schedulesStoredPackagesFromLastHarvest() {
+        refresher.harvested("A", TTL);
+        clock.set(TTL.toMillis() * 2);
+
+        assertThat(refresher.stored("A", 0, TTL)).isFalse();
+        assertThat(refresher.stored("B", 0, TTL)).isTrue();
+        refresher.tick();
+
+        assertThat(dispatched).containsExactly("B");
+    }
+
+    @Test
+    void retriesStaleHarvests_dispatcherFull() {
+        refresher.harvested("A", Duration.ZERO);
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+        accepting.set(false);
+        refresher.tick();
+
+        accepting.set(true);
+        refresher.tick();
+
+        assertThat(dispatched).containsExactly("A");
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StalenessIndexTest {
+    private static final long SLOT = 100;
+
+    private final StalenessIndex<String> index = new StalenessIndex<>(SLOT);
+
+    @Test
+    void returnsNothing_nothingStale() {
+        index.schedule("A", 2 * SLOT);
+
+        assertThat(index.poll(SLOT, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void returnsStaleItems() {
+        index.schedule("A", SLOT);
+        index.schedule("B", 3 * SLOT);
+
+        assertThat(index.poll(2 * SLOT, 10)).containsExactly("A");
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void ordersStaleItemsByAccessesAndStaleness() {
+        index.schedule("A", 2 * SLOT);
+        index.schedule("B", SLOT);
+        index.schedule("C", SLOT + 1);
+        index.touch("C");
+
+        assertThat(index.poll(3 * SLOT, 10)).containsExactly("C", "B", "A");
+    }
+
+    @Test
+    void limitsNumberOfReturnedItems() {
+        index.schedule("A", SLOT);
+        index.schedule("B", SLOT);
+
+        assertThat(index.poll(2 * SLOT, 1)).hasSize(1);
+        assertThat(index.getStale()).isEqualTo(1);
+        assertThat(index.poll(2 * SLOT, 1)).hasSize(1);
+        assertThat(index.poll(2 * SLOT, 1)).isEmpty();
+    }
+
+    @Test
+    void reschedulesItems() {
+        index.schedule("A", SLOT);
+        index.schedule("A", 5 * SLOT);
+
+        assertThat(index.poll(2 * SLOT, 10)).isEmpty();
+        assertThat(index.poll(5 * SLOT, 10)).containsExactly("A");
+    }
+
+    @Test
+    void ignoresRescheduledStaleItems() {
+        index.schedule("A", SLOT);
+        index.schedule("B", SLOT);
+        index.poll(2 * SLOT, 1);
+
+        index.schedule("A", 5 * SLOT);
+        index.schedule("B", 5 * SLOT);
+
+        assertThat(index.poll(2 * SLOT, 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void countsAccessesOfIndexedItems() {
+        index.schedule("A", SLOT);
+
+        assertThat(index.touch("A")).isTrue();
+        assertThat(index.touch("B")).isFalse();
+    }
+
+    @Test
+    void countsConcurrentAccesses() throws Exception {
+        index.schedule("A", SLOT);
+        index.schedule("B", SLOT);
+        index.touch("B");
+        final var threads = 8;
+        final var executor = Executors.newFixedThreadPool(threads);
+        final var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    index.touch("A");
+                }
+                return null;
+            });
+        }
+
+        for (var future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(index.poll(2 * SLOT, 10)).containsExactly("A", "B");
+    }
+
+    @Test
+    void keepsScheduledItems_scheduleIfAbsent() {
+        index.schedule("A", 5 * SLOT);
+
+        assertThat(index.scheduleIfAbsent("A", SLOT)).isFalse();
+        assertThat(index.scheduleIfAbsent("B", SLOT)).isTrue();
+
+        assertThat(index.poll(2 * SLOT, 10)).containsExactly("B");
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskCoalescerTest {
+    private static final PackageURL PURL = toPurl("pkg:type/namespace/name@version");
+    private static final PackageURL OTHER_PURL = toPurl("pkg:type/namespace/name@other");
+    private static final String SOURCE = "Source";
+    private static final String OTHER_SOURCE = "Other";
+
+    private final TaskCoalescer coalescer = new TaskCoalescer();
+
+    private static PackageURL toPurl(String purl) {
+        try {
+            return new PackageURL(purl);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Test
+    void schedulesFirstTrigger() {
+        assertThat(coalescer.trigger(PURL, SOURCE)).isTrue();
+        assertThat(coalescer.getScheduled()).isEqualTo(1);
+    }
+
+    @Test
+    void absorbsTriggersForPendingTask() {
+        coalescer.trigger(PURL, SOURCE);
+
+        assertThat(coalescer.trigger(PURL, SOURCE)).isFalse();
+        assertThat(coalescer.finished(PURL, SOURCE)).isFalse();
+    }
+
+    @Test
+    void distinguishesPackagesAndSources() {
+        coalescer.trigger(PURL, SOURCE);
+
+        assertThat(coalescer.trigger(OTHER_PURL, SOURCE)).isTrue();
+        assertThat(coalescer.trigger(PURL, OTHER_SOURCE)).isTrue();
+    }
+
+    @Test
+    void runsOnceMoreIfTriggeredWhileRunning() {
+        coalescer.trigger(PURL, SOURCE);
+        coalescer.started(PURL, SOURCE);
+
+        assertThat(coalescer.trigger(PURL, SOURCE)).isFalse();
+        assertThat(coalescer.trigger(PURL, SOURCE)).isFalse();
+
+        assertThat(coalescer.finished(PURL, SOURCE)).isTrue();
+        coalescer.started(PURL, SOURCE);
+        assertThat(coalescer.finished(PURL, SOURCE)).isFalse();
+    }
+
+    @Test
+    void schedulesAgainAfterCompletion() {
+        coalescer.trigger(PURL, SOURCE);
+        coalescer.started(PURL, SOURCE);
+        coalescer.finished(PURL, SOURCE);
+
+        assertThat(coalescer.trigger(PURL, SOURCE)).isTrue();
+    }
+
+    @Test
+    void schedulesAgainAfterCancellation() {
+        coalescer.trigger(PURL, SOURCE);
+        coalescer.cancelled(PURL, SOURCE);
+
+        assertThat(coalescer.trigger(PURL, SOURCE)).isTrue();
+    }
+
+    @Test
+    void reportsMetrics() {
+        final var registry = new SimpleMeterRegistry();
+        coalescer.bindTo(registry);
+        coalescer.trigger(PURL, SOURCE);
+        coalescer.trigger(PURL, SOURCE);
+        coalescer.started(PURL, SOURCE);
+        coalescer.trigger(PURL, SOURCE);
+        coalescer.finished(PURL, SOURCE);
+
+        assertThat(registry.get("harvest.tasks.coalesced").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("harvest.tasks.reruns").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("harvest.tasks.scheduled").gauge().value()).isEqualTo(1);
+    }
+}
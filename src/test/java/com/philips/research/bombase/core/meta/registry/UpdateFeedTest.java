@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpdateFeedTest {
+    private static final int CAPACITY = 2;
+    private static final PackageURL PURL = purl("pkg:npm/name@1.0");
+    private static final PackageURL OTHER = purl("pkg:maven/group/name@1.0");
+
+    private final Queue<Runnable> tasks = new LinkedList<>();
+    private final UpdateFeed feed = new UpdateFeed(CAPACITY, tasks::add);
+    private final List<String> received = new ArrayList<>();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private static PackageURL purl(String purl) {
+        try {
+            return new PackageURL(purl);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    void deliversModificationsOfSelectedPackages() {
+        feed.subscribe(purl -> "npm".equals(purl.getType()),
+                (purl, fields) -> received.add(purl.getName() + fields), closed::incrementAndGet);
+
+        feed.publish(PURL, Set.of(Field.TITLE));
+        feed.publish(OTHER, Set.of(Field.TITLE));
+        feed.publish(PURL, Set.of(Field.DESCRIPTION));
+        drain();
+
+        assertThat(received).containsExactly("name[TITLE]", "name[DESCRIPTION]");
+        assertThat(tasks).isEmpty();
+        assertThat(closed).hasValue(0);
+    }
+
+    @Test
+    void dropsSlowSubscriber() {
+        final var subscription = feed.subscribe(purl -> true,
+                (purl, fields) -> received.add(purl.getName()), closed::incrementAndGet);
+
+        for (int i = 0; i <= CAPACITY; i++) {
+            feed.publish(PURL, Set.of(Field.TITLE));
+        }
+        drain();
+
+        assertThat(subscription.isActive()).isFalse();
+        assertThat(received).isEmpty();
+        assertThat(closed).hasValue(1);
+        assertThat(feed.getSubscribers()).isZero();
+    }
+
+    @Test
+    void closesFailingSubscriber() {
+        final var subscription = feed.subscribe(purl -> true, (purl, fields) -> {
+            throw new IllegalStateException("Test");
+        }, closed::incrementAndGet);
+
+        feed.publish(PURL, Set.of(Field.TITLE));
+        drain();
+        feed.publish(PURL, Set.of(Field.TITLE));
+
+        assertThat(subscription.isActive()).isFalse();
+        assertThat(closed).hasValue(1);
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    void stopsDeliveryWhenClosed() {
+        final var subscription = feed.subscribe(purl -> true,
+                (purl, fields) -> received.add(purl.getName()), closed::incrementAndGet);
+
+        subscription.close();
+        subscription.close();
+        feed.publish(PURL, Set.of(Field.TITLE));
+        drain();
+
+        assertThat(received).isEmpty();
+        assertThat(closed).hasValue(1);
+    }
+}
@@ -160,7 +160,7 @@ class NpmClientTest {
         var serverlessClient = new NpmClient(URI.create("http://localhost:1234"));
 
         assertThatThrownBy(() -> serverlessClient.getPackageMetadata(PURL))
-                .isInstanceOf(NpmException.class)
+                .isInstanceOfSatisfying(NpmException.class, e -> assertThat(e.isTemporary()).isTrue())
                 .hasMessageContaining("not reachable");
     }
 
@@ -169,7 +169,24 @@ class NpmClientTest {
         mockServer.enqueue(new MockResponse().setResponseCode(500));
 
         assertThatThrownBy(() -> client.getPackageMetadata(PURL))
-                .isInstanceOf(NpmException.class)
+                .isInstanceOfSatisfying(NpmException.class, e -> assertThat(e.isTemporary()).isTrue())
                 .hasMessageContaining("status 500");
     }
+
+    @Test
+    void throwsTemporary_serverThrottles() {
+        mockServer.enqueue(new MockResponse().setResponseCode(429));
+
+        assertThatThrownBy(() -> client.getPackageMetadata(PURL))
+                .isInstanceOfSatisfying(NpmException.class, e -> assertThat(e.isTemporary()).isTrue());
+    }
+
+    @Test
+    void throwsPermanent_serverRejectsRequest() {
+        mockServer.enqueue(new MockResponse().setResponseCode(403));
+
+        assertThatThrownBy(() -> client.getPackageMetadata(PURL))
+                .isInstanceOfSatisfying(NpmException.class, e -> assertThat(e.isTemporary()).isFalse())
+                .hasMessageContaining("status 403");
+    }
 }
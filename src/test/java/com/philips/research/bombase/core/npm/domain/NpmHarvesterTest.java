@@ -5,6 +5,7 @@
 
 package com.philips.research.bombase.core.npm.domain;
 
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -12,7 +13,7 @@ import static org.mockito.Mockito.mock;
 
 class NpmHarvesterTest {
     private final NpmClient client = mock(NpmClient.class);
-    private final NpmHarvester harvester = new NpmHarvester(client);
+    private final NpmHarvester harvester = new NpmHarvester(client, NegativeCache.NONE);
 
     @Test
     void triggersForSupportedType() {
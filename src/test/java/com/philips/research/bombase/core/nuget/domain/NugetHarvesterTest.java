@@ -5,6 +5,7 @@
 
 package com.philips.research.bombase.core.nuget.domain;
 
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -12,7 +13,7 @@ import static org.mockito.Mockito.mock;
 
 class NugetHarvesterTest {
     private final NugetClient client = mock(NugetClient.class);
-    private final NugetHarvester harvester = new NugetHarvester(client);
+    private final NugetHarvester harvester = new NugetHarvester(client, NegativeCache.NONE);
 
     @Test
     void triggersForSupportedType() {
@@ -5,6 +5,7 @@
 
 package com.philips.research.bombase.core.pypi.domain;
 
+import com.philips.research.bombase.core.meta.NegativeCache;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -12,7 +13,7 @@ import static org.mockito.Mockito.mock;
 
 class PyPiHarvesterTest {
     private final PyPiClient client = mock(PyPiClient.class);
-    private final PyPiHarvester harvester = new PyPiHarvester(client);
+    private final PyPiHarvester harvester = new PyPiHarvester(client, NegativeCache.NONE);
 
     @Test
     void triggersForSupportedType() {
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.support;
+
+import com.philips.research.bombase.ConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientConfigTest {
+    private final ConfigProperties properties = new ConfigProperties()
+            .setHttpConnectTimeout(Duration.ofSeconds(3))
+            .setHttpReadTimeout(Duration.ofSeconds(7))
+            .setHttpMaxRequests(12)
+            .setHttpMaxRequestsPerHost(3);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HttpClientConfig config = new HttpClientConfig();
+
+    @Test
+    void configuresSharedClient() {
+        final var client = config.httpClient(properties, registry);
+
+        assertThat(client.connectTimeoutMillis()).isEqualTo(3_000);
+        assertThat(client.readTimeoutMillis()).isEqualTo(7_000);
+        assertThat(client.dispatcher().getMaxRequests()).isEqualTo(12);
+        assertThat(client.dispatcher().getMaxRequestsPerHost()).isEqualTo(3);
+        assertThat(client.protocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+    }
+
+    @Test
+    void exposesConnectionPoolMetrics() {
+        final var client = config.httpClient(properties, registry);
+
+        config.httpConnectionPoolMetrics(client).bindTo(registry);
+
+        assertThat(registry.find("http.client.registry.pool.connection.count").gauges()).isNotEmpty();
+    }
+
+    @Test
+    void servesImmutableResourcesFromCache(@TempDir Path directory) throws Exception {
+        final var client = config.httpClient(properties.setHttpCacheDirectory(directory), registry);
+        try (final var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setHeader("Cache-Control", "no-cache").setBody("Body"));
+            server.start();
+            final var request = new Request.Builder().url(server.url("/immutable"))
+                    .header(HttpCache.IMMUTABLE_HEADER, "true")
+                    .build();
+
+            for (int i = 0; i < 2; i++) {
+                try (final var response = client.newCall(request).execute()) {
+                    assertThat(response.body().string()).isEqualTo("Body");
+                }
+            }
+
+            assertThat(server.getRequestCount()).isEqualTo(1);
+            assertThat(server.takeRequest().getHeader(HttpCache.IMMUTABLE_HEADER)).isNull();
+            assertThat(registry.get("http.client.registry.cache").tag("result", "hit").functionCounter().count())
+                    .isEqualTo(1.0);
+        }
+    }
+
+    @Test
+    void revalidatesCachedResources(@TempDir Path directory) throws Exception {
+        final var client = config.httpClient(properties.setHttpCacheDirectory(directory), registry);
+        try (final var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("Body"));
+            server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+            server.start();
+            final var request = new Request.Builder().url(server.url("/mutable")).build();
+
+            for (int i = 0; i < 2; i++) {
+                try (final var response = client.newCall(request).execute()) {
+                    assertThat(response.body().string()).isEqualTo("Body");
+                }
+            }
+
+            server.takeRequest();
+            assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+        }
+    }
+}
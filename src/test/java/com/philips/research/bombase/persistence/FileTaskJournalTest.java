@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.TaskJournal;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static com.philips.research.bombase.persistence.LogMetaStoreTest.toPurl;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileTaskJournalTest {
+    private static final PackageURL PURL = toPurl("pkg:type/namespace/name@version");
+    private static final PackageURL OTHER_PURL = toPurl("pkg:type/namespace/other@version");
+    private static final String LISTENER = "Listener";
+    private static final int SEGMENT_SIZE = 1024;
+
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    private Path directory;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        directory = Files.createTempDirectory("Test-");
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void restoresUnfinishedTasksAfterRestart() {
+        final var journal = new FileTaskJournal(directory, SEGMENT_SIZE);
+        journal.requested(PURL, LISTENER, Priority.INTERACTIVE, Set.of());
+        final var position = journal.requested(OTHER_PURL, LISTENER, Priority.CASCADE, Set.of(Field.TITLE));
+        journal.close();
+
+        final var restored = new FileTaskJournal(directory, SEGMENT_SIZE);
+
+        assertThat(restored.position()).isEqualTo(position);
+        final var tasks = restored.unfinished();
+        assertThat(tasks).hasSize(2);
+        final var task = tasks.get(1);
+        assertThat(task.getPurl()).isEqualTo(OTHER_PURL);
+        assertThat(task.getListener()).isEqualTo(LISTENER);
+        assertThat(task.getPriority()).isEqualTo(Priority.CASCADE);
+        assertThat(task.getFields()).containsExactly(Field.TITLE);
+    }
+
+    @Test
+    void dropsCompletedTasks() {
+        final var journal = new FileTaskJournal(directory, SEGMENT_SIZE);
+        journal.requested(PURL, LISTENER, Priority.INTERACTIVE, Set.of());
+        journal.requested(OTHER_PURL, LISTENER, Priority.INTERACTIVE, Set.of());
+        journal.completed(PURL, LISTENER, journal.position());
+        journal.close();
+
+        final var restored = new FileTaskJournal(directory, SEGMENT_SIZE);
+
+        assertThat(restored.unfinished()).extracting(TaskJournal.Task::getPurl).containsExactly(OTHER_PURL);
+    }
+
+    @Test
+    void keepsTaskRequestedAfterStartOfCompletedExecution() {
+        final var journal = new FileTaskJournal(directory, SEGMENT_SIZE);
+        journal.requested(PURL, LISTENER, Priority.INTERACTIVE, Set.of());
+        final var covered = journal.position();
+        journal.requested(PURL, LISTENER, Priority.CASCADE, Set.of(Field.TITLE));
+
+        journal.completed(PURL, LISTENER, covered);
+
+        assertThat(journal.unfinished()).hasSize(1);
+    }
+
+    @Test
+    void mergesRequestsForSamePackageAndListener() {
+        final var journal = new FileTaskJournal(directory, SEGMENT_SIZE);
+        journal.requested(PURL, LISTENER, Priority.CASCADE, Set.of(Field.TITLE));
+        journal.requested(PURL, LISTENER, Priority.INTERACTIVE, Set.of(Field.DESCRIPTION));
+        journal.requested(PURL, "Other", Priority.CASCADE, Set.of());
+
+        final var tasks = journal.unfinished();
+
+        assertThat(tasks).hasSize(2);
+        final var task = tasks.get(0);
+        assertThat(task.getListener()).isEqualTo(LISTENER);
+        assertThat(task.getPriority()).isEqualTo(Priority.INTERACTIVE);
+        assertThat(task.getFields()).containsExactlyInAnyOrder(Field.TITLE, Field.DESCRIPTION);
+    }
+
+    @Test
+    void compactsSealedSegments() throws Exception {
+        final var journal = new FileTaskJournal(directory, SEGMENT_SIZE);
+        journal.requested(PURL, LISTENER, Priority.INTERACTIVE, Set.of());
+        for (int i = 0; i < 100; i++) {
+            journal.requested(OTHER_PURL, LISTENER, Priority.CASCADE, Set.of());
+            journal.completed(OTHER_PURL, LISTENER, journal.position());
+        }
+        final var segments = countSegments();
+
+        journal.compact();
+        journal.close();
+
+        assertThat(countSegments()).isLessThan(segments);
+        final var restored = new FileTaskJournal(directory, SEGMENT_SIZE);
+        assertThat(restored.unfinished()).extracting(TaskJournal.Task::getPurl).containsExactly(PURL);
+    }
+
+    private long countSegments() throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
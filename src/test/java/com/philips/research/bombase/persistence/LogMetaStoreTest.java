@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.registry.Attribute;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.MetaRegistry;
+import com.philips.research.bombase.core.meta.registry.QueuedTaskRunner;
+import com.philips.research.bombase.core.meta.registry.Trust;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogMetaStoreTest {
+    private static final PackageURL PURL = toPurl("pkg:type/namespace/name@version");
+    private static final String TITLE = "Title";
+    private static final URI HOMEPAGE = URI.create("https://example.com");
+    private static final List<String> ATTRIBUTION = List.of("Alice", "Bob");
+    private static final int SEGMENT_SIZE = 1024;
+
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    private Path directory;
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        directory = Files.createTempDirectory("Test-");
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void restoresPackagesAfterRestart() {
+        final var store = new LogMetaStore(directory, SEGMENT_SIZE);
+        final var pkg = store.createPackage(PURL);
+        pkg.add(new Attribute<>(Field.TITLE, 80, TITLE, 10, "Other"));
+        pkg.add(new Attribute<>(Field.HOME_PAGE, 60, HOMEPAGE, 0, null));
+        pkg.add(new Attribute<>(Field.ATTRIBUTION, 70, ATTRIBUTION, 0, null));
+        pkg.setUpdated();
+        store.close();
+
+        final var restored = new LogMetaStore(directory, SEGMENT_SIZE).findPackage(PURL).orElseThrow();
+
+        assertThat(restored.getLastUpdated()).isEqualTo(pkg.getLastUpdated());
+        final var title = restored.<String>getAttributeFor(Field.TITLE).orElseThrow();
+        assertThat(title.getValue()).contains(TITLE);
+        assertThat(title.getScore()).isEqualTo(80);
+        assertThat(title.getAltValue()).contains("Other");
+        assertThat(title.getAltScore()).isEqualTo(10);
+        assertThat(restored.getAttributeFor(Field.HOME_PAGE).orElseThrow().getValue()).contains(HOMEPAGE);
+        assertThat(restored.getAttributeFor(Field.ATTRIBUTION).orElseThrow().getValue()).contains(ATTRIBUTION);
+    }
+
+    @Test
+    void restoresScoreAndAlternativeChangesAfterRestart() {
+        final var store = new LogMetaStore(directory, SEGMENT_SIZE);
+        final var registry = new MetaRegistry(store, new QueuedTaskRunner(store));
+        registry.edit(PURL, editor -> editor.update(Field.TITLE, Trust.PROBABLY, TITLE));
+        registry.edit(PURL, editor -> editor.update(Field.TITLE, Trust.CERTAIN, TITLE));
+        registry.edit(PURL, editor -> editor.update(Field.TITLE, Trust.MAYBE, "Other"));
+        store.close();
+
+        final var restored = new LogMetaStore(directory, SEGMENT_SIZE).findPackage(PURL).orElseThrow();
+
+        final var title = restored.<String>getAttributeFor(Field.TITLE).orElseThrow();
+        assertThat(title.getValue()).contains(TITLE);
+        assertThat(title.getScore()).isEqualTo(80);
+        assertThat(title.getAltValue()).contains("Other");
+        assertThat(title.getAltScore()).isEqualTo(10);
+    }
+
+    @Test
+    void indexesRestoredPackagesForSearch() {
+        final var store = new LogMetaStore(directory, SEGMENT_SIZE);
+        store.createPackage(PURL);
+        store.close();
+
+        final var restored = new LogMetaStore(directory, SEGMENT_SIZE);
+
+        assertThat(restored.findPackages("", "", "nam", "")).hasSize(1);
+        assertThat(restored.latestScans(10)).hasSize(1);
+    }
+
+    @Test
+    void compactsSupersededRecords() throws Exception {
+        final var store = new LogMetaStore(directory, SEGMENT_SIZE);
+        final var pkg = store.createPackage(PURL);
+        pkg.add(new Attribute<>(Field.DESCRIPTION, 60, "x".repeat(SEGMENT_SIZE / 4), 0, null));
+        for (int i = 0; i < 20; i++) {
+            pkg.setUpdated();
+        }
+        final var before = segmentCount();
+
+        store.compact();
+        store.close();
+
+        assertThat(segmentCount()).isLessThan(before);
+        assertThat(new LogMetaStore(directory, SEGMENT_SIZE).findPackage(PURL)).isPresent();
+    }
+
+    private long segmentCount() throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.registry.Attribute;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Package;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemoryMetaStoreTest {
+    private static final PackageURL PURL = toPurl("pkg:type/namespace/name@version");
+    private static final PackageURL OTHER_VERSION = toPurl("pkg:type/namespace/name@other");
+    private static final PackageURL OTHER_NAME = toPurl("pkg:type/namespace/other@version");
+
+    private final MemoryMetaStore store = new MemoryMetaStore(new TickingClock());
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Test
+    void createsPackageOnlyOnce() {
+        final var pkg = store.createPackage(PURL);
+
+        assertThat(store.createPackage(PURL)).isSameAs(pkg);
+        assertThat(store.findPackage(PURL)).contains(pkg);
+    }
+
+    @Test
+    void findsAllVersionsOfPackage() {
+        final var pkg = store.createPackage(PURL);
+        final var other = store.createPackage(OTHER_VERSION);
+        store.createPackage(OTHER_NAME);
+
+        assertThat(store.findPackageVersions(PURL)).containsExactlyInAnyOrder(pkg, other);
+    }
+
+    @Test
+    void findsPackagesByPurlFragments() {
+        final var pkg = store.createPackage(PURL);
+        store.createPackage(OTHER_NAME);
+        store.createPackage(toPurl("pkg:other/namespace/name@version"));
+
+        assertThat(store.findPackages("yp", "names", "am", "ers")).containsExactly(pkg);
+        assertThat(store.findPackages("", "", "", "")).hasSize(3);
+    }
+
+    @Test
+    void verifiesLongFragments_ngramFalsePositive() {
+        store.createPackage(toPurl("pkg:type/abcxbcd@version"));
+
+        assertThat(store.findPackages("", "", "abcd", "")).isEmpty();
+        assertThat(store.findPackages("", "", "bcxb", "")).hasSize(1);
+    }
+
+    @Test
+    void sharesRepeatedAttributeValues() {
+        final var pkg = store.createPackage(PURL);
+        final var other = store.createPackage(OTHER_NAME);
+        pkg.add(new Attribute<>(Field.DECLARED_LICENSE, 60, new String("MIT".toCharArray()), 0, null));
+        other.add(new Attribute<>(Field.DECLARED_LICENSE, 60, new String("MIT".toCharArray()), 0, null));
+
+        pkg.setUpdated();
+        other.setUpdated();
+
+        assertThat(other.getAttributeFor(Field.DECLARED_LICENSE).orElseThrow().getValue().orElseThrow())
+                .isSameAs(pkg.getAttributeFor(Field.DECLARED_LICENSE).orElseThrow().getValue().orElseThrow());
+    }
+
+    @Test
+    void keepsOwnInstancesOfUniqueAttributeValues() {
+        final var pkg = store.createPackage(PURL);
+        final var other = store.createPackage(OTHER_NAME);
+        pkg.add(new Attribute<>(Field.DESCRIPTION, 60, new String("Text".toCharArray()), 0, null));
+        other.add(new Attribute<>(Field.DESCRIPTION, 60, new String("Text".toCharArray()), 0, null));
+
+        pkg.setUpdated();
+        other.setUpdated();
+
+        assertThat(other.getAttributeFor(Field.DESCRIPTION).orElseThrow().getValue().orElseThrow())
+                .isNotSameAs(pkg.getAttributeFor(Field.DESCRIPTION).orElseThrow().getValue().orElseThrow());
+    }
+
+    @Test
+    void listsLatestScansFromRecencyIndex() {
+        final var pkg = store.createPackage(PURL);
+        final var other = store.createPackage(OTHER_VERSION);
+        store.createPackage(OTHER_NAME);
+
+        pkg.setUpdated();
+        other.setUpdated();
+
+        assertThat(store.latestScans(2)).containsExactly(other, pkg);
+        assertThat(store.findPackages("", "", "name", "")).containsExactly(other, pkg);
+    }
+
+    @Nested
+    class Stress {
+        private static final int THREADS = 8;
+        private static final int PACKAGES = 10_000;
+        private static final int TARGETS = 100;
+
+        @Test
+        void createsEachPackageOnce_concurrentCreation() throws Exception {
+            final var executor = Executors.newFixedThreadPool(THREADS);
+            final var created = ConcurrentHashMap.<Package>newKeySet();
+            final var tasks = new ArrayList<Callable<Void>>();
+            for (int t = 0; t < THREADS; t++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < PACKAGES; i++) {
+                        created.add(store.createPackage(purlFor(i)));
+                    }
+                    return null;
+                });
+            }
+
+            for (var future : executor.invokeAll(tasks, 30, TimeUnit.SECONDS)) {
+                future.get();
+            }
+            executor.shutdown();
+
+            assertThat(created).hasSize(PACKAGES);
+            assertThat(store.findPackageVersions(purlFor(0))).hasSize(PACKAGES / 100);
+        }
+
+        @Test
+        void visitsOnlyMatchingPackages_growingStore() {
+            populate(0, 10_000);
+            final var smallVersions = visitsOf(() -> assertThat(store.findPackageVersions(targetFor(0))).hasSize(TARGETS));
+            final var smallSearch = visitsOf(() -> assertThat(store.findPackages("", "", "target", "")).hasSize(TARGETS));
+
+            populate(10_000, 200_000);
+            final var largeVersions = visitsOf(() -> assertThat(store.findPackageVersions(targetFor(0))).hasSize(TARGETS));
+            final var largeSearch = visitsOf(() -> assertThat(store.findPackages("", "", "target", "")).hasSize(TARGETS));
+
+            assertThat(smallVersions).isEqualTo(TARGETS);
+            assertThat(largeVersions).isEqualTo(smallVersions);
+            assertThat(smallSearch).isEqualTo(TARGETS);
+            assertThat(largeSearch).isEqualTo(smallSearch);
+        }
+
+        /**
+         * Creates the target packages and unrelated packages up to the indicated store size.
+         */
+        private void populate(int from, int to) {
+            for (int i = from; i < to; i++) {
+                store.createPackage((i < TARGETS) ? targetFor(i) : toPurl(String.format("pkg:type%d/namespace/name%d@1", i % 7, i)));
+            }
+        }
+
+        private long visitsOf(Runnable lookup) {
+            final var before = store.getVisited();
+            lookup.run();
+            return store.getVisited() - before;
+        }
+
+        private PackageURL targetFor(int i) {
+            return toPurl("pkg:type/namespace/target@" + i);
+        }
+
+        private PackageURL purlFor(int i) {
+            return toPurl(String.format("pkg:type%d/namespace/name%d@%d", (i % 100) % 7, i % 100, i));
+        }
+    }
+
+    /**
+     * Clock that advances by a millisecond on every reading.
+     */
+    private static class TickingClock extends Clock {
+        private final AtomicLong millis = new AtomicLong();
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NgramIndexTest {
+    private static final String ITEM = "Item";
+    private static final String OTHER = "Other";
+
+    private final NgramIndex<String> index = new NgramIndex<>();
+
+    @Test
+    void findsFragmentsByNgram() {
+        index.add("abcd", ITEM);
+        index.add("xbc", OTHER);
+
+        assertThat(index.matching("bcd")).containsExactly("abcd");
+        assertThat(index.matching("xbc")).containsExactly("xbc");
+        assertThat(index.matching("qqq")).isEmpty();
+    }
+
+    @Test
+    void findsShortFragmentsByPosting() {
+        index.add("abcd", ITEM);
+        index.add("xbc", OTHER);
+        index.add("x", OTHER);
+
+        assertThat(index.matching("b")).containsExactlyInAnyOrder("abcd", "xbc");
+        assertThat(index.matching("x")).containsExactlyInAnyOrder("xbc", "x");
+        assertThat(index.matching("bc")).containsExactlyInAnyOrder("abcd", "xbc");
+        assertThat(index.matching("cd")).containsExactly("abcd");
+        assertThat(index.matching("q")).isEmpty();
+    }
+
+    @Test
+    void verifiesLongFragments() {
+        index.add("abcde", ITEM);
+        index.add("bcdxabc", OTHER);
+
+        assertThat(index.matching("abcd")).containsExactly("abcde");
+    }
+
+    @Test
+    void groupsItemsByText() {
+        index.add("abc", ITEM);
+        index.add("abc", OTHER);
+        index.add("xyz", OTHER);
+
+        final var texts = index.matching("b");
+
+        assertThat(index.countOf(texts)).isEqualTo(2);
+        assertThat(index.itemsOf(texts)).containsExactlyInAnyOrder(ITEM, OTHER);
+        assertThat(index.itemsOf(Set.of("xyz"))).containsExactly(OTHER);
+    }
+}
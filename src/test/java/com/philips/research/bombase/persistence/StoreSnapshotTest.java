@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.registry.Attribute;
+import com.philips.research.bombase.core.meta.registry.Field;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StoreSnapshotTest {
+    private static final PackageURL PURL = LogMetaStoreTest.toPurl("pkg:type/namespace/name@version");
+    private static final String LICENSE = "MIT";
+    private static final int PACKAGE_COUNT = 25_000;
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    private Path directory;
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    private Path file;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        directory = Files.createTempDirectory("Test-");
+        file = directory.resolve("snapshot.bin");
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void restoresSavedPackages() {
+        final var store = new MemoryMetaStore();
+        final var pkg = store.createPackage(PURL);
+        pkg.add(new Attribute<>(Field.DECLARED_LICENSE, 70, LICENSE, 0, null));
+        pkg.setUpdated();
+
+        assertThat(new StoreSnapshot(store).save(file)).isEqualTo(1);
+        final var restored = new MemoryMetaStore();
+        assertThat(new StoreSnapshot(restored).restore(file)).isEqualTo(1);
+
+        final var copy = restored.findPackage(PURL).orElseThrow();
+        assertThat(copy.getLastUpdated()).isEqualTo(pkg.getLastUpdated());
+        assertThat(copy.getAttributeFor(Field.DECLARED_LICENSE).orElseThrow().getValue()).contains(LICENSE);
+        assertThat(restored.findPackages("", "", "nam", "")).hasSize(1);
+    }
+
+    @Test
+    void restoresMultipleChunks() {
+        final var store = new MemoryMetaStore();
+        for (int i = 0; i < PACKAGE_COUNT; i++) {
+            store.createPackage(LogMetaStoreTest.toPurl("pkg:type/name" + i + "@" + i));
+        }
+        new StoreSnapshot(store).save(file);
+
+        final var restored = new MemoryMetaStore();
+
+        assertThat(new StoreSnapshot(restored).restore(file)).isEqualTo(PACKAGE_COUNT);
+        assertThat(restored.findPackage(LogMetaStoreTest.toPurl("pkg:type/name12345@12345"))).isPresent();
+    }
+
+    @Test
+    void skipsExistingPackages() {
+        final var store = new MemoryMetaStore();
+        store.createPackage(PURL);
+        new StoreSnapshot(store).save(file);
+
+        assertThat(new StoreSnapshot(store).restore(file)).isZero();
+    }
+
+    @Test
+    void persistsRestoredPackagesInLog() {
+        final var store = new MemoryMetaStore();
+        store.createPackage(PURL);
+        new StoreSnapshot(store).save(file);
+        final var logDirectory = directory.resolve("log");
+        final var log = new LogMetaStore(logDirectory, SEGMENT_SIZE);
+
+        new StoreSnapshot(log).restore(file);
+        log.close();
+
+        assertThat(new LogMetaStore(logDirectory, SEGMENT_SIZE).findPackage(PURL)).isPresent();
+    }
+
+    @Test
+    void throws_notASnapshotFile() throws Exception {
+        Files.writeString(file, "Not a snapshot file");
+
+        assertThatThrownBy(() -> new StoreSnapshot(new MemoryMetaStore()).restore(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("not a snapshot");
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValueDictionaryTest {
+    private static final String VALUE = "Value";
+
+    private final ValueDictionary dictionary = new ValueDictionary();
+
+    @Test
+    void sharesEqualStrings() {
+        final var first = dictionary.intern(new String(VALUE.toCharArray()));
+        final var second = dictionary.intern(new String(VALUE.toCharArray()));
+
+        assertThat(second).isSameAs(first);
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sharesListsAndTheirElements() {
+        final List<String> list = new ArrayList<>(List.of(new String(VALUE.toCharArray())));
+        final List<String> copy = new ArrayList<>(List.of(new String(VALUE.toCharArray())));
+
+        final var first = dictionary.intern(list);
+        final var second = dictionary.intern(copy);
+        final var string = dictionary.intern(new String(VALUE.toCharArray()));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.get(0)).isSameAs(string);
+    }
+
+    @Test
+    void keepsOtherValues() {
+        final var uri = URI.create("https://example.com");
+
+        assertThat(dictionary.intern(uri)).isSameAs(uri);
+        assertThat(dictionary.<String>intern(null)).isNull();
+    }
+
+    @Test
+    void sharesPurlType() {
+        final var purl = dictionary.intern(LogMetaStoreTest.toPurl("pkg:maven/group/artifact@1.0?type=jar#sub/path"));
+        final var other = dictionary.intern(LogMetaStoreTest.toPurl("pkg:maven/group/artifact@1.0"));
+
+        assertThat(purl).isEqualTo(LogMetaStoreTest.toPurl("pkg:maven/group/artifact@1.0?type=jar#sub/path"));
+        assertThat(other.getType()).isSameAs(purl.getType());
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+}